@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Compares two CSV result files of the jmh task (e.g. of two commits) and
+ * prints the change of every benchmark that is in both files. A change is
+ * only reported as faster or slower if it is bigger than the sum of both
+ * error margins, everything else is reported as noise.
+ * Usage: BenchmarkComparison baseline.csv contender.csv
+ */
+public class BenchmarkComparison {
+    private static final String FORMAT = "%-70s %14s %14s %9s  %s%n";
+
+
+    public static void main(final String[] ARGS) throws IOException {
+        if (ARGS.length != 2 || ARGS[0].isEmpty() || ARGS[1].isEmpty()) {
+            System.err.println("Usage: BenchmarkComparison baseline.csv contender.csv");
+            System.exit(1);
+        }
+        final Map<String, Result> BASELINE  = read(ARGS[0]);
+        final Map<String, Result> CONTENDER = read(ARGS[1]);
+        System.out.printf(FORMAT, "Benchmark", "Baseline", "Contender", "Change", "");
+        CONTENDER.forEach((name, contender) -> {
+            Result baseline = BASELINE.get(name);
+            if (null == baseline || !baseline.UNIT.equals(contender.UNIT)) { return; }
+            double change = (contender.SCORE - baseline.SCORE) / baseline.SCORE * 100.0;
+            String verdict;
+            if (Math.abs(contender.SCORE - baseline.SCORE) <= baseline.ERROR + contender.ERROR) {
+                verdict = "noise";
+            } else {
+                // Throughput is better when higher, all other modes measure time
+                boolean better = "thrpt".equals(contender.MODE) == contender.SCORE > baseline.SCORE;
+                verdict = better ? "faster" : "SLOWER";
+            }
+            System.out.printf(FORMAT, name, format(baseline), format(contender), String.format("%+.1f%%", change), verdict);
+        });
+    }
+
+    // Key is the benchmark name with its parameters, e.g. WorldBenchmark.createCountryPaths:resolution=HI_RES
+    private static Map<String, Result> read(final String FILE_NAME) throws IOException {
+        final List<String>        LINES   = Files.readAllLines(Paths.get(FILE_NAME), StandardCharsets.UTF_8);
+        final Map<String, Result> RESULTS = new LinkedHashMap<>();
+        if (LINES.isEmpty()) { return RESULTS; }
+        final List<String> HEADER = split(LINES.get(0));
+        for (String line : LINES.subList(1, LINES.size())) {
+            List<String>  columns = split(line);
+            StringBuilder name    = new StringBuilder(columns.get(0).replace("eu.hansolo.fx.world.", ""));
+            for (int i = 7; i < columns.size() && i < HEADER.size(); i++) {
+                if (columns.get(i).isEmpty()) { continue; }
+                name.append(':').append(HEADER.get(i).replace("Param: ", "")).append('=').append(columns.get(i));
+            }
+            double error = columns.get(5).isEmpty() || "NaN".equals(columns.get(5)) ? 0 : Double.parseDouble(columns.get(5));
+            RESULTS.put(name.toString(), new Result(columns.get(1), Double.parseDouble(columns.get(4)), error, columns.get(6)));
+        }
+        return RESULTS;
+    }
+
+    private static List<String> split(final String LINE) {
+        final List<String> COLUMNS = new ArrayList<>();
+        StringBuilder      column  = new StringBuilder();
+        boolean            quoted  = false;
+        for (char c : LINE.toCharArray()) {
+            if ('"' == c) {
+                quoted = !quoted;
+            } else if (',' == c && !quoted) {
+                COLUMNS.add(column.toString());
+                column = new StringBuilder();
+            } else {
+                column.append(c);
+            }
+        }
+        COLUMNS.add(column.toString());
+        return COLUMNS;
+    }
+
+    private static String format(final Result RESULT) { return String.format("%.3f %s", RESULT.SCORE, RESULT.UNIT); }
+
+
+    // ******************** Inner Classes *************************************
+    private static class Result {
+        final String MODE;
+        final double SCORE;
+        final double ERROR;
+        final String UNIT;
+
+        Result(final String MODE, final double SCORE, final double ERROR, final String UNIT) {
+            this.MODE  = MODE;
+            this.SCORE = SCORE;
+            this.ERROR = ERROR;
+            this.UNIT  = UNIT;
+        }
+    }
+}
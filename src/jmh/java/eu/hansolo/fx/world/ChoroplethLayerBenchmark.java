@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.ChoroplethLayer.Classification;
+import eu.hansolo.fx.world.World.Resolution;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.SVGPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Recoloring all countries with the ChoroplethLayer compared to a loop that
+ * computes and sets the fill of every country path. Plain SVGPaths stand in
+ * for the CountryPaths of a World, which can not be created without the FX
+ * toolkit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChoroplethLayerBenchmark {
+    private static final Country[]       COUNTRIES = Country.values();
+    private static final Color           FILL      = Color.web("#d9d9dc");
+    private static final Color           FROM      = Color.web("#ffffcc");
+    private static final Color           TO        = Color.web("#800026");
+    private Map<Country, SVGPath[]>      paths;
+    private ChoroplethLayer              layer;
+    private NumericValueObject[][]       values;
+    private int                          valueSet;
+
+
+    @Setup public void setup() {
+        Random random = new Random(42);
+        paths = new EnumMap<>(Country.class);
+        for (CountryGeometry countryGeometry : GeometryCache.get(Resolution.HI_RES).getCountryGeometries()) {
+            SVGPath[] countryPaths = new SVGPath[countryGeometry.getPathCount()];
+            for (int i = 0; i < countryPaths.length; i++) { countryPaths[i] = new SVGPath(); }
+            paths.put(countryGeometry.getCountry(), countryPaths);
+        }
+        // Two sets of values so that most countries change their bucket on every switch
+        values = new NumericValueObject[2][COUNTRIES.length];
+        for (int i = 0; i < COUNTRIES.length; i++) {
+            values[0][i] = NumericValueObject.of(random.nextDouble() * 1000);
+            values[1][i] = NumericValueObject.of(random.nextDouble() * 1000);
+        }
+        setValues(0);
+        layer = new ChoroplethLayer(this::paint, Classification.QUANTILE, 9, FROM, TO);
+        layer.apply();
+    }
+
+    private void setValues(final int VALUE_SET) {
+        for (int i = 0; i < COUNTRIES.length; i++) { COUNTRIES[i].setValue(values[VALUE_SET][i]); }
+        valueSet = VALUE_SET;
+    }
+
+    private void paint(final Country COUNTRY, final Color COLOR) {
+        SVGPath[] countryPaths = paths.get(COUNTRY);
+        if (null == countryPaths) return;
+        for (SVGPath path : countryPaths) { path.setFill(null == COLOR ? FILL : COLOR); }
+    }
+
+    // Values did not change, nothing has to be repainted
+    @Benchmark public int applyUnchanged() { return layer.apply(); }
+
+    @Benchmark public int applyChanged() {
+        setValues(1 - valueSet);
+        return layer.apply();
+    }
+
+    // Every country is interpolated and painted
+    @Benchmark public int recolorAll() {
+        setValues(1 - valueSet);
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (Country country : COUNTRIES) {
+            double value = ((NumericValueObject) country.getValue()).getValue();
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        for (Country country : COUNTRIES) {
+            double value = ((NumericValueObject) country.getValue()).getValue();
+            paint(country, FROM.interpolate(TO, (value - min) / (max - min)));
+        }
+        return COUNTRIES.length;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Reverse geocoding of random positions with the CountryLocator compared to
+ * a point in polygon test against all countries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountryLocatorBenchmark {
+    private static final int  COUNT = 100_000;
+    private Geometry          geometry;
+    private CountryLocator    locator;
+    private double[]          latitudes;
+    private double[]          longitudes;
+    private int[]             ordinals;
+
+
+    @Setup public void setup() {
+        Random random = new Random(42);
+        geometry   = GeometryCache.get(Resolution.HI_RES);
+        locator    = new CountryLocator(geometry);
+        latitudes  = new double[COUNT];
+        longitudes = new double[COUNT];
+        ordinals   = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            latitudes[i]  = random.nextDouble() * 140 - 60;
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+    }
+
+    @Benchmark @BenchmarkMode(Mode.SingleShotTime) @OutputTimeUnit(TimeUnit.MILLISECONDS) @Warmup(iterations = 5) @Measurement(iterations = 10)
+    public CountryLocator build() { return new CountryLocator(geometry); }
+
+    @Benchmark @OperationsPerInvocation(COUNT)
+    public int locateBulk() { return locator.locate(latitudes, longitudes, ordinals, COUNT); }
+
+    @Benchmark @OperationsPerInvocation(COUNT)
+    public int locateAllCountries() {
+        int found = 0;
+        for (int i = 0; i < COUNT; i++) {
+            double x = MapProjection.longitudeToX(longitudes[i]);
+            double y = MapProjection.latitudeToY(latitudes[i]);
+            for (CountryGeometry countryGeometry : geometry.getCountryGeometries()) {
+                if (countryGeometry.contains(x, y)) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Rasterization of one tile of the country tile pyramid around Europe
+ * compared to rendering the whole map at the same pixel scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountryRasterizerBenchmark {
+    @Param({ "0", "2", "4" })
+    private int               level;
+    private CountryRasterizer rasterizer;
+    private int[]             fills;
+    private double            minX;
+    private double            minY;
+
+
+    @Setup public void setup() {
+        rasterizer = new CountryRasterizer(GeometryCache.get(Resolution.HI_RES));
+        fills      = new int[Country.values().length];
+        Arrays.fill(fills, 0xffd9d9dc);
+        double units = (double) CountryTiles.TILE_SIZE / (1 << level);
+        minX = Math.floor(500 / units) * units;
+        minY = Math.floor(290 / units) * units;
+    }
+
+    @Benchmark public BufferedImage renderTile() {
+        return rasterizer.render(fills, 0xff000000, minX, minY, 1 << level, CountryTiles.TILE_SIZE, CountryTiles.TILE_SIZE);
+    }
+
+    @Benchmark public BufferedImage renderMap() {
+        int scale = Math.min(1 << level, 4);
+        return rasterizer.render(fills, 0xff000000, 0, 0, scale, (int) Math.ceil(MapProjection.MAP_WIDTH * scale), (int) Math.ceil(MapProjection.MAP_HEIGHT * scale));
+    }
+}
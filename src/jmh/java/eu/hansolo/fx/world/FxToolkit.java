@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import com.sun.javafx.application.PlatformImpl;
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+
+/**
+ * Starts the FX toolkit for the benchmarks that need World or CountryPath
+ * and runs code on the FX application thread. Benchmarks should run a
+ * batch of operations per call to keep the thread hand over out of the score.
+ * Needs a display, or the Monocle headless platform with
+ * -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw
+ */
+final class FxToolkit {
+    private static boolean started;
+
+
+    // ******************** Constructors **************************************
+    private FxToolkit() {}
+
+
+    // ******************** Methods *******************************************
+    static synchronized void start() {
+        if (started) { return; }
+        final CountDownLatch LATCH = new CountDownLatch(1);
+        PlatformImpl.startup(LATCH::countDown);
+        try {
+            LATCH.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+        Platform.setImplicitExit(false);
+        started = true;
+    }
+
+    static void run(final Runnable RUNNABLE) { call(() -> { RUNNABLE.run(); return null; }); }
+
+    static <T> T call(final Callable<T> CALLABLE) {
+        if (Platform.isFxApplicationThread()) {
+            try {
+                return CALLABLE.call();
+            } catch (Exception exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+        final FutureTask<T> TASK = new FutureTask<>(CALLABLE);
+        Platform.runLater(TASK);
+        try {
+            return TASK.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Nearest hub assignment of 20000 locations to 300 hubs with one
+ * Location.calcDistanceInMeter() call per pair compared to the distance
+ * matrix and the KD-tree of GeoMath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoMathBenchmark {
+    private static final int POINT_COUNT = 20_000;
+    private static final int HUB_COUNT   = 300;
+    private List<Location>   points;
+    private List<Location>   hubs;
+    private GeoMath          pointMath;
+    private GeoMath          hubMath;
+    private double[]         matrix;
+
+
+    @Setup public void setup() {
+        Random random = new Random(42);
+        points = new ArrayList<>();
+        hubs   = new ArrayList<>();
+        for (int i = 0; i < POINT_COUNT; i++) { points.add(new Location(random.nextDouble() * 140 - 60, random.nextDouble() * 360 - 180)); }
+        for (int i = 0; i < HUB_COUNT; i++) { hubs.add(new Location(random.nextDouble() * 140 - 60, random.nextDouble() * 360 - 180)); }
+        pointMath = new GeoMath(points);
+        hubMath   = new GeoMath(hubs);
+        matrix    = new double[POINT_COUNT * HUB_COUNT];
+    }
+
+    @Benchmark public int[] assignPerCall() {
+        int[] result = new int[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; i++) {
+            Location point = points.get(i);
+            double   best  = Double.MAX_VALUE;
+            for (int j = 0; j < HUB_COUNT; j++) {
+                double distance = point.calcDistanceInMeter(point, hubs.get(j));
+                if (distance < best) {
+                    best      = distance;
+                    result[i] = j;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark public double[] distanceMatrix() {
+        pointMath.distanceMatrix(hubMath, matrix);
+        return matrix;
+    }
+
+    @Benchmark public int[] assignNearest() { return hubMath.assignNearest(pointMath); }
+
+    // Includes the conversion into unit vectors and building the KD-trees
+    @Benchmark public int[] buildAndAssignNearest() { return new GeoMath(hubs).assignNearest(new GeoMath(points)); }
+}
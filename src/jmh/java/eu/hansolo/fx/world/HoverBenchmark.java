@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.SVGPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Country lookup and repaint of a hover (enter and exit) the way World did it
+ * with the country name as key compared to the Country stored on the path and
+ * an EnumMap. SVGPaths with name and country stand in for the CountryPaths,
+ * which can not be created without the FX toolkit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoverBenchmark {
+    private static final Color       FILL  = Color.web("#d9d9dc");
+    private static final Color       HOVER = Color.web("#456acf");
+    private Map<String, List<Path>>  pathsByName;
+    private Map<Country, List<Path>> pathsByCountry;
+    private Path[]                   hovered;
+    private int                      index;
+
+
+    @Setup public void setup() {
+        Random     random   = new Random(42);
+        List<Path> allPaths = new ArrayList<>();
+        pathsByName    = new HashMap<>();
+        pathsByCountry = new EnumMap<>(Country.class);
+        for (CountryGeometry countryGeometry : GeometryCache.get(Resolution.HI_RES).getCountryGeometries()) {
+            Country    country = countryGeometry.getCountry();
+            List<Path> paths   = new ArrayList<>();
+            for (int i = 0; i < countryGeometry.getPathCount(); i++) { paths.add(new Path(country)); }
+            pathsByName.put(country.getName(), paths);
+            pathsByCountry.put(country, paths);
+            allPaths.addAll(paths);
+        }
+        hovered = new Path[1024];
+        for (int i = 0; i < hovered.length; i++) { hovered[i] = allPaths.get(random.nextInt(allPaths.size())); }
+    }
+
+    private Path nextPath() {
+        index = (index + 1) & (hovered.length - 1);
+        return hovered[index];
+    }
+
+    @Benchmark public Country hoverByName() {
+        Path    path    = nextPath();
+        Country country = Country.valueOf(path.NAME);
+        for (Path p : pathsByName.get(country.getName())) { p.setFill(HOVER); }
+        country = Country.valueOf(path.NAME);
+        for (Path p : pathsByName.get(country.getName())) { p.setFill(null == country.getColor() ? FILL : country.getColor()); }
+        return country;
+    }
+
+    @Benchmark public Country hoverByCountry() {
+        Path       path    = nextPath();
+        Country    country = path.COUNTRY;
+        List<Path> paths   = pathsByCountry.get(country);
+        for (int i = 0; i < paths.size(); i++) { paths.get(i).setFill(HOVER); }
+        country = path.COUNTRY;
+        paths   = pathsByCountry.get(country);
+        for (int i = 0; i < paths.size(); i++) { paths.get(i).setFill(null == country.getColor() ? FILL : country.getColor()); }
+        return country;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static class Path extends SVGPath {
+        private final String  NAME;
+        private final Country COUNTRY;
+
+        private Path(final Country COUNTRY) {
+            this.NAME    = COUNTRY.getName();
+            this.COUNTRY = COUNTRY;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Projection and distance of single positions and adding batches of
+ * locations of different sizes to a World.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationBenchmark {
+    private static final int COUNT = 1024;
+    private double[]         latitudes;
+    private double[]         longitudes;
+    private Location         location;
+
+
+    @Setup public void setup() {
+        Random random = new Random(42);
+        latitudes  = new double[COUNT];
+        longitudes = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            latitudes[i]  = random.nextDouble() * 140 - 60;
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+        location = new Location(latitudes[0], longitudes[0]);
+    }
+
+    @Benchmark @OperationsPerInvocation(COUNT)
+    public double latLonToXY() {
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            double[] xy = World.latLonToXY(latitudes[i], longitudes[i]);
+            sum += xy[0] + xy[1];
+        }
+        return sum;
+    }
+
+    @Benchmark @OperationsPerInvocation(COUNT)
+    public double calcDistanceInMeter() {
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) { sum += location.calcDistanceInMeter(latitudes[i], longitudes[i], latitudes[COUNT - 1 - i], longitudes[COUNT - 1 - i]); }
+        return sum;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    @State(Scope.Benchmark)
+    public static class WorldState {
+        @Param({ "100", "1000", "10000" })
+        public int  size;
+        World       world;
+        Location[]  locations;
+
+        @Setup(Level.Trial) public void createWorld() {
+            Random random = new Random(42);
+            locations = new Location[size];
+            for (int i = 0; i < size; i++) { locations[i] = new Location(random.nextDouble() * 140 - 60, random.nextDouble() * 360 - 180); }
+            FxToolkit.start();
+            world = FxToolkit.call(() -> new World(World.Resolution.LO_RES));
+        }
+
+        @Setup(Level.Invocation) public void clearLocations() { FxToolkit.run(world::clearLocations); }
+    }
+
+    @Benchmark @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public World addLocations(final WorldState STATE) {
+        FxToolkit.run(() -> STATE.world.addLocations(STATE.locations));
+        return STATE.world;
+    }
+}
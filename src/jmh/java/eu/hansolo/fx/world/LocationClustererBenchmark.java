@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Building the cluster hierarchy and selecting the visible clusters of a
+ * zoomed in viewport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationClustererBenchmark {
+    private static final double MAP_WIDTH  = MapProjection.MAP_WIDTH;
+    private static final double MAP_HEIGHT = MapProjection.MAP_HEIGHT;
+    private static final double RADIUS     = 40;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int size;
+
+    private Location[]        locations;
+    private double[]          xs;
+    private double[]          ys;
+    private LocationClusterer clusterer;
+    private double[]          queries;
+    private int               query;
+
+
+    @Setup public void setup() {
+        Random random = new Random(42);
+        locations = new Location[size];
+        xs        = new double[size];
+        ys        = new double[size];
+        for (int i = 0; i < size; i++) {
+            locations[i] = new Location(random.nextDouble() * 135 - 60, random.nextDouble() * 360 - 180);
+            xs[i]        = MapProjection.longitudeToX(locations[i].getLongitude());
+            ys[i]        = MapProjection.latitudeToY(locations[i].getLatitude());
+        }
+        clusterer = new LocationClusterer(locations, xs, ys, MAP_WIDTH, MAP_HEIGHT, RADIUS);
+        queries   = new double[2048];
+        for (int i = 0; i < queries.length; i += 2) {
+            queries[i]     = random.nextDouble() * MAP_WIDTH;
+            queries[i + 1] = random.nextDouble() * MAP_HEIGHT;
+        }
+    }
+
+    private int nextQuery() {
+        query = (query + 2) & (queries.length - 1);
+        return query;
+    }
+
+    @Benchmark @BenchmarkMode(Mode.SingleShotTime) @OutputTimeUnit(TimeUnit.MILLISECONDS) @Warmup(iterations = 3) @Measurement(iterations = 5)
+    public LocationClusterer build() { return new LocationClusterer(locations, xs, ys, MAP_WIDTH, MAP_HEIGHT, RADIUS); }
+
+    // Viewport of a 10x zoom on a map that fills 1009 x 665 pixels
+    @Benchmark public List<LocationClusterer.Cluster> findZoomed() {
+        int q = nextQuery();
+        return clusterer.find(LocationClusterer.getLevel(10), queries[q], queries[q + 1], queries[q] + MAP_WIDTH * 0.1, queries[q + 1] + MAP_HEIGHT * 0.1);
+    }
+
+    @Benchmark public List<LocationClusterer.Cluster> findAll() {
+        return clusterer.find(0, 0, 0, MAP_WIDTH, MAP_HEIGHT);
+    }
+}
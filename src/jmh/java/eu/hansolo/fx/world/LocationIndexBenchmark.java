@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Queries of the LocationIndex compared to the linear scan over all
+ * locations that was the only option before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationIndexBenchmark {
+    private static final double MAP_WIDTH  = 1009;
+    private static final double MAP_HEIGHT = 665;
+    private static final double CELL_SIZE  = 4;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int size;
+
+    private Location[]    locations;
+    private double[]      xs;
+    private double[]      ys;
+    private LocationIndex index;
+    private double[]      queries;
+    private int           query;
+
+
+    @Setup public void setup() {
+        Random random = new Random(42);
+        locations = new Location[size];
+        xs        = new double[size];
+        ys        = new double[size];
+        index     = new LocationIndex(MAP_WIDTH, MAP_HEIGHT, CELL_SIZE);
+        for (int i = 0; i < size; i++) {
+            locations[i] = new Location(random.nextDouble() * 135 - 60, random.nextDouble() * 360 - 180);
+            xs[i]        = MapProjection.longitudeToX(locations[i].getLongitude());
+            ys[i]        = MapProjection.latitudeToY(locations[i].getLatitude());
+            index.add(locations[i], xs[i], ys[i]);
+        }
+        queries = new double[2048];
+        for (int i = 0; i < queries.length; i += 2) {
+            queries[i]     = random.nextDouble() * MAP_WIDTH;
+            queries[i + 1] = random.nextDouble() * MAP_HEIGHT;
+        }
+    }
+
+    private int nextQuery() {
+        query = (query + 2) & (queries.length - 1);
+        return query;
+    }
+
+    @Benchmark @BenchmarkMode(Mode.SingleShotTime) @OutputTimeUnit(TimeUnit.MILLISECONDS) @Warmup(iterations = 5) @Measurement(iterations = 10)
+    public LocationIndex build() {
+        LocationIndex locationIndex = new LocationIndex(MAP_WIDTH, MAP_HEIGHT, CELL_SIZE);
+        for (int i = 0; i < size; i++) { locationIndex.add(locations[i], xs[i], ys[i]); }
+        return locationIndex;
+    }
+
+    // Viewport of a 10x zoom
+    @Benchmark public List<Location> findIndexed() {
+        int q = nextQuery();
+        return index.find(queries[q], queries[q + 1], queries[q] + MAP_WIDTH * 0.1, queries[q + 1] + MAP_HEIGHT * 0.1);
+    }
+
+    @Benchmark public List<Location> findLinear() {
+        int            q      = nextQuery();
+        double         minX   = queries[q];
+        double         minY   = queries[q + 1];
+        double         maxX   = minX + MAP_WIDTH * 0.1;
+        double         maxY   = minY + MAP_HEIGHT * 0.1;
+        List<Location> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY) { result.add(locations[i]); }
+        }
+        return result;
+    }
+
+    @Benchmark public List<Location> nearest10Indexed() {
+        int q = nextQuery();
+        return index.nearest(queries[q], queries[q + 1], 10);
+    }
+
+    @Benchmark public Location pickIndexed() {
+        int q = nextQuery();
+        return index.pick(queries[q], queries[q + 1]);
+    }
+
+    @Benchmark public Location pickLinear() {
+        int q = nextQuery();
+        for (int i = size - 1; i >= 0; i--) {
+            double halfSize = locations[i].getIconSize() * 0.5;
+            if (Math.abs(xs[i] - queries[q]) <= halfSize && Math.abs(ys[i] - queries[q + 1]) <= halfSize) { return locations[i]; }
+        }
+        return null;
+    }
+}
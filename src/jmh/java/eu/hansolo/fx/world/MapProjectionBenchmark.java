@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Projection of one million positions with the former per point code of
+ * World (tan() based formula, one array per point) compared to the batch
+ * methods of MapProjection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapProjectionBenchmark {
+    private static final int    COUNT      = 1_000_000;
+    private static final double MAP_WIDTH  = MapProjection.MAP_WIDTH;
+    private static final double MAP_HEIGHT = MapProjection.MAP_HEIGHT;
+    private double[]            latitudes;
+    private double[]            longitudes;
+    private double[]            xs;
+    private double[]            ys;
+
+
+    @Setup public void setup() {
+        Random random = new Random(42);
+        latitudes  = new double[COUNT];
+        longitudes = new double[COUNT];
+        xs         = new double[COUNT];
+        ys         = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            latitudes[i]  = random.nextDouble() * 170 - 85;
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+    }
+
+    @Benchmark @OperationsPerInvocation(COUNT)
+    public double[] perPoint() {
+        for (int i = 0; i < COUNT; i++) {
+            double[] xy = latLonToXY(latitudes[i], longitudes[i]);
+            xs[i] = xy[0];
+            ys[i] = xy[1];
+        }
+        return xs;
+    }
+
+    @Benchmark @OperationsPerInvocation(COUNT)
+    public double[] project() {
+        MapProjection.project(latitudes, longitudes, xs, ys, COUNT);
+        return xs;
+    }
+
+    @Benchmark @OperationsPerInvocation(COUNT)
+    public double[] projectParallel() {
+        MapProjection.projectParallel(latitudes, longitudes, xs, ys, COUNT);
+        return xs;
+    }
+
+    @Benchmark @OperationsPerInvocation(COUNT)
+    public double[] xyToLatLon() {
+        MapProjection.xyToLatLon(longitudes, latitudes, ys, xs, COUNT);
+        return xs;
+    }
+
+    // Former implementation of World.latLonToXY()
+    private static double[] latLonToXY(final double LATITUDE, final double LONGITUDE) {
+        double x = (LONGITUDE + 180) * (MAP_WIDTH / 360) + (-MAP_WIDTH * 0.0285);
+        double y = (MAP_HEIGHT / 2) - (MAP_WIDTH * (Math.log(Math.tan((Math.PI / 4) + (Math.toRadians(LATITUDE) / 2)))) / (2 * Math.PI)) + (MAP_HEIGHT * 0.195);
+        return new double[]{ x, y };
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Headless rendering of one choropleth map with locations, with and
+ * without PNG encoding, in full size and as a thumbnail. Run with -t to measure the throughput of several
+ * threads that share one MapRenderer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MapRendererBenchmark {
+    @Param({ "1009", "256" })
+    private int                 width;
+    private MapRenderer         renderer;
+    private Map<Country, Color> colors;
+    private List<Location>      locations;
+
+
+    @Setup public void setup() {
+        Random               random = new Random(42);
+        Map<Country, Double> values = new EnumMap<>(Country.class);
+        for (Country country : Country.values()) { values.put(country, random.nextDouble() * 100); }
+        renderer  = new MapRenderer(Resolution.HI_RES, width);
+        colors    = ChoroplethLayer.classify(values, ChoroplethLayer.Classification.QUANTILE, 5, Color.web("#ffffcc"), Color.web("#800026"));
+        locations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) { locations.add(new Location(random.nextDouble() * 140 - 60, random.nextDouble() * 360 - 180)); }
+    }
+
+    @Benchmark public BufferedImage render() { return renderer.render(colors, locations); }
+
+    @Benchmark public byte[] renderPng() { return renderer.renderPng(colors, locations); }
+}
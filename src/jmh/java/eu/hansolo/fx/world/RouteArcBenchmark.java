@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Computing the great circle arcs of 5000 random routes, this is the work
+ * that the arc cache of RouteLayer saves when only the weights change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteArcBenchmark {
+    private static final int ROUTES = 5_000;
+    private double[]         latitudes;
+    private double[]         longitudes;
+
+
+    @Setup public void setup() {
+        Random random = new Random(42);
+        latitudes  = new double[ROUTES * 2];
+        longitudes = new double[ROUTES * 2];
+        for (int i = 0; i < ROUTES * 2; i++) {
+            latitudes[i]  = random.nextDouble() * 120 - 60;
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+    }
+
+    @Benchmark public float[][][] createArcs() {
+        float[][][] arcs = new float[ROUTES][][];
+        for (int i = 0; i < ROUTES; i++) {
+            arcs[i] = RouteLayer.createArc(latitudes[2 * i], longitudes[2 * i], latitudes[2 * i + 1], longitudes[2 * i + 1], MapProjection.MAP_WIDTH);
+        }
+        return arcs;
+    }
+}
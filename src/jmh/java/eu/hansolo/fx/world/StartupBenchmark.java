@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.SVGPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Cold start comparison of the ways to get from the resources to country
+ * shapes that can be rendered. Every measurement runs in a fresh JVM to
+ * capture class loading and interpreter cost as seen at startup. The svg
+ * content is set on SVGPaths whose bounds are requested on the FX
+ * application thread, which makes them parse it, so the NODES measurements
+ * include the complete string round trip. Needs the FX toolkit, see FxToolkit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+    @Param({ "HI_RES", "LO_RES" })
+    public Resolution resolution;
+
+
+    // World has loaded Country and the JavaFX classes before any path is created
+    @Setup public void setup() {
+        FxToolkit.start();
+        Country.values();
+        Color.web("#d9d9dc");
+    }
+
+    // Former World code path: Properties.load(), split(";") and parsing of every value
+    @Benchmark public void properties(final Blackhole BLACKHOLE) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = open(Resolution.HI_RES == resolution ? "hires.properties" : "lores.properties")) { properties.load(in); }
+        FxToolkit.run(() -> properties.forEach((key, value) -> {
+            for (String path : value.toString().split(";")) { BLACKHOLE.consume(parse(path)); }
+        }));
+    }
+
+    // Properties fallback of Geometry.load() when no binary geometry file is available
+    @Benchmark public Geometry propertiesToGeometry() {
+        return Geometry.fromProperties(Geometry.readProperties("eu/hansolo/fx/world/" + (Resolution.HI_RES == resolution ? "hires.properties" : "lores.properties")));
+    }
+
+    // World in RenderMode.NODES: binary geometry file, svg content and parsing of every path
+    @Benchmark public void binaryGeometryToSvgPath(final Blackhole BLACKHOLE) throws IOException {
+        Geometry geometry = binaryGeometry();
+        FxToolkit.run(() -> {
+            for (CountryGeometry countryGeometry : geometry.getCountryGeometries()) {
+                for (int i = 0; i < countryGeometry.getPathCount(); i++) { BLACKHOLE.consume(parse(countryGeometry.toSvgContent(i))); }
+            }
+        });
+    }
+
+    // World in RenderMode.CANVAS and TILES and MapRenderer draw the decoded rings without any strings
+    @Benchmark public Geometry binaryGeometry() throws IOException {
+        try (InputStream in = open(Resolution.HI_RES == resolution ? "hires.geo" : "lores.geo")) { return GeometryFormat.read(in); }
+    }
+
+    // The bounds of an SVGPath are computed from the parsed content, as they are when it is rendered for the first time
+    private static SVGPath parse(final String CONTENT) {
+        SVGPath path = new SVGPath();
+        path.setContent(CONTENT);
+        path.getLayoutBounds();
+        return path;
+    }
+
+    private static InputStream open(final String FILE_NAME) throws IOException {
+        InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream("eu/hansolo/fx/world/" + FILE_NAME);
+        if (null == in) { throw new IOException(FILE_NAME + " not found, run the compileGeometry task first"); }
+        return in;
+    }
+}
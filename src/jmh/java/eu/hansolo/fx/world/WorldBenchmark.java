@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.RenderMode;
+import eu.hansolo.fx.world.World.Resolution;
+import javafx.event.Event;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Core operations of World at both resolutions: creating the country paths,
+ * repainting all countries after a fill color change and dispatching hover
+ * events to the country paths. Everything runs on the FX application thread,
+ * see FxToolkit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldBenchmark {
+    private static final int          EVENTS = 1024;
+    private static final Color[]      FILLS  = { Color.web("#d9d9dc"), Color.web("#c9c9cc") };
+    @Param({ "HI_RES", "LO_RES" })
+    public  Resolution                resolution;
+    private Geometry                  geometry;
+    private World                     world;
+    private List<CountryPath>         paths;
+    private int[]                     targets;
+    private int                       fillIndex;
+
+
+    @Setup public void setup() {
+        FxToolkit.start();
+        Random random = new Random(42);
+        geometry = GeometryCache.get(resolution);
+        world    = FxToolkit.call(() -> new World(resolution, RenderMode.NODES));
+        paths    = new ArrayList<>();
+        world.getCountryPaths().values().forEach(paths::addAll);
+        targets  = new int[EVENTS];
+        for (int i = 0; i < EVENTS; i++) { targets[i] = random.nextInt(paths.size()); }
+    }
+
+    @Benchmark @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Country, List<CountryPath>> createCountryPaths() { return FxToolkit.call(() -> World.createCountryPaths(geometry)); }
+
+    // Changing the fill color repaints every country through setFillAndStroke()
+    @Benchmark public void setFillAndStroke() {
+        FxToolkit.run(() -> world.setFillColor(FILLS[fillIndex ^= 1]));
+    }
+
+    // One enter and one exit per operation, the events go through handleMouseEvent()
+    @Benchmark @OperationsPerInvocation(EVENTS)
+    public void handleMouseEvent() {
+        FxToolkit.run(() -> {
+            for (int target : targets) {
+                CountryPath path = paths.get(target);
+                Event.fireEvent(path, createMouseEvent(MouseEvent.MOUSE_ENTERED));
+                Event.fireEvent(path, createMouseEvent(MouseEvent.MOUSE_EXITED));
+            }
+        });
+    }
+
+    private static MouseEvent createMouseEvent(final javafx.event.EventType<MouseEvent> TYPE) {
+        return new MouseEvent(TYPE, 0, 0, 0, 0, MouseButton.NONE, 0, false, false, false, false, false, false, false, false, false, false, null);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+
+/**
+ * Colors the countries of a World by their NumericValueObject. The values
+ * are classified into buckets either by equal intervals between min and max
+ * or by quantiles, every bucket has a precomputed color from a lookup table.
+ * apply() repaints all countries in one pass and skips the countries whose
+ * bucket did not change since the last call. Countries without a numeric
+ * value get the fill color of the World.
+ * Must only be used on the FX application thread.
+ */
+public class ChoroplethLayer {
+    public enum Classification { EQUAL_INTERVAL, QUANTILE }
+
+    private static final Country[]                  COUNTRIES      = Country.values();
+    private static final int                        NO_VALUE       = -1;
+    private static final int                        NOT_PAINTED    = -2;
+    private static final Color[]                    DEFAULT_COLORS = { Color.web("#ffffcc"), Color.web("#fd8d3c"), Color.web("#800026") };
+    private        final BiConsumer<Country, Color> PAINTER;
+    private        final double[]                   VALUES;
+    private        final int[]                      BUCKETS;
+    private              Classification             classification;
+    private              Color[]                    colors;
+    private              Color[]                    lookupTable;
+    private              double[]                   breaks;
+    private              boolean                    repaintAll;
+
+
+    // ******************** Constructors **************************************
+    public ChoroplethLayer(final World WORLD) {
+        this(WORLD, Classification.QUANTILE, 5, DEFAULT_COLORS);
+    }
+    public ChoroplethLayer(final World WORLD, final Classification CLASSIFICATION, final int BUCKET_COUNT, final Color... COLORS) {
+        this(WORLD::setCountryColor, CLASSIFICATION, BUCKET_COUNT, COLORS);
+    }
+    ChoroplethLayer(final BiConsumer<Country, Color> PAINTER, final Classification CLASSIFICATION, final int BUCKET_COUNT, final Color... COLORS) {
+        if (BUCKET_COUNT < 1) { throw new IllegalArgumentException("At least one bucket is needed"); }
+        if (COLORS.length < 1) { throw new IllegalArgumentException("At least one color is needed"); }
+        this.PAINTER   = PAINTER;
+        VALUES         = new double[COUNTRIES.length];
+        BUCKETS        = new int[COUNTRIES.length];
+        classification = CLASSIFICATION;
+        colors         = COLORS.clone();
+        breaks         = new double[0];
+        Arrays.fill(BUCKETS, NOT_PAINTED);
+        createLookupTable(BUCKET_COUNT);
+    }
+
+
+    // ******************** Methods *******************************************
+    public Classification getClassification() { return classification; }
+    public void setClassification(final Classification CLASSIFICATION) { classification = CLASSIFICATION; }
+
+    public int getBucketCount() { return lookupTable.length; }
+    public void setBucketCount(final int BUCKET_COUNT) {
+        if (BUCKET_COUNT < 1) { throw new IllegalArgumentException("At least one bucket is needed"); }
+        createLookupTable(BUCKET_COUNT);
+    }
+
+    public Color[] getColors() { return colors.clone(); }
+    public void setColors(final Color... COLORS) {
+        if (COLORS.length < 1) { throw new IllegalArgumentException("At least one color is needed"); }
+        colors = COLORS.clone();
+        createLookupTable(lookupTable.length);
+    }
+
+    /**
+     * @return the upper bounds of all buckets but the last one from the last call of apply()
+     */
+    public double[] getBreaks() { return breaks.clone(); }
+
+    /**
+     * @param BUCKET index of the bucket
+     * @return the color that is used for the given bucket
+     */
+    public Color getColor(final int BUCKET) { return lookupTable[BUCKET]; }
+
+    /**
+     * Classifies the current values of all countries and repaints the ones
+     * that moved to another bucket.
+     * @return the number of repainted countries
+     */
+    public int apply() {
+        int count = 0;
+        for (int ordinal = 0; ordinal < COUNTRIES.length; ordinal++) {
+            ValueObject value = COUNTRIES[ordinal].getValue();
+            double      v     = value instanceof NumericValueObject ? ((NumericValueObject) value).getValue() : Double.NaN;
+            if (!Double.isNaN(v)) { VALUES[count++] = v; }
+        }
+        breaks = createBreaks(classification, VALUES, count, lookupTable.length);
+
+        int repainted = 0;
+        for (Country country : COUNTRIES) {
+            ValueObject value  = country.getValue();
+            double      v      = value instanceof NumericValueObject ? ((NumericValueObject) value).getValue() : Double.NaN;
+            int         bucket = Double.isNaN(v) ? NO_VALUE : bucketOf(breaks, v);
+            if (!repaintAll && bucket == BUCKETS[country.ordinal()]) { continue; }
+            BUCKETS[country.ordinal()] = bucket;
+            PAINTER.accept(country, NO_VALUE == bucket ? null : lookupTable[bucket]);
+            repainted++;
+        }
+        repaintAll = false;
+        return repainted;
+    }
+
+    /**
+     * Resets the color of all countries that have been painted by this layer.
+     */
+    public void clear() {
+        for (Country country : COUNTRIES) {
+            if (NOT_PAINTED == BUCKETS[country.ordinal()]) { continue; }
+            PAINTER.accept(country, null);
+        }
+        Arrays.fill(BUCKETS, NOT_PAINTED);
+    }
+
+    /**
+     * Classifies the given values the same way apply() does but returns the
+     * colors instead of painting them, e.g. for rendering with a MapRenderer.
+     * Only depends on its arguments and can be called from any thread.
+     * @return the color of every country that has a value
+     */
+    public static Map<Country, Color> classify(final Map<Country, ? extends Number> VALUES, final Classification CLASSIFICATION, final int BUCKET_COUNT, final Color... COLORS) {
+        if (BUCKET_COUNT < 1) { throw new IllegalArgumentException("At least one bucket is needed"); }
+        if (COLORS.length < 1) { throw new IllegalArgumentException("At least one color is needed"); }
+        final double[] VALUE_ARRAY  = new double[VALUES.size()];
+        final Color[]  LOOKUP_TABLE = createLookupTable(COLORS, BUCKET_COUNT);
+        int count = 0;
+        for (Number value : VALUES.values()) {
+            if (null != value && !Double.isNaN(value.doubleValue())) { VALUE_ARRAY[count++] = value.doubleValue(); }
+        }
+        final double[]            BREAKS = createBreaks(CLASSIFICATION, VALUE_ARRAY, count, BUCKET_COUNT);
+        final Map<Country, Color> RESULT = new EnumMap<>(Country.class);
+        VALUES.forEach((country, value) -> {
+            if (null != value && !Double.isNaN(value.doubleValue())) { RESULT.put(country, LOOKUP_TABLE[bucketOf(BREAKS, value.doubleValue())]); }
+        });
+        return RESULT;
+    }
+
+    // Sorts the first COUNT values if the classification is QUANTILE
+    private static double[] createBreaks(final Classification CLASSIFICATION, final double[] VALUES, final int COUNT, final int BUCKET_COUNT) {
+        return Classification.QUANTILE == CLASSIFICATION ? quantileBreaks(VALUES, COUNT, BUCKET_COUNT) : equalIntervalBreaks(VALUES, COUNT, BUCKET_COUNT);
+    }
+
+    private static double[] equalIntervalBreaks(final double[] VALUES, final int COUNT, final int BUCKET_COUNT) {
+        final double[] BREAKS = new double[BUCKET_COUNT - 1];
+        if (0 == COUNT) { return BREAKS; }
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int i = 0; i < COUNT; i++) {
+            min = Math.min(min, VALUES[i]);
+            max = Math.max(max, VALUES[i]);
+        }
+        final double STEP = (max - min) / BUCKET_COUNT;
+        for (int i = 0; i < BREAKS.length; i++) { BREAKS[i] = min + STEP * (i + 1); }
+        return BREAKS;
+    }
+
+    private static double[] quantileBreaks(final double[] VALUES, final int COUNT, final int BUCKET_COUNT) {
+        final double[] BREAKS = new double[BUCKET_COUNT - 1];
+        if (0 == COUNT) { return BREAKS; }
+        Arrays.sort(VALUES, 0, COUNT);
+        for (int i = 0; i < BREAKS.length; i++) { BREAKS[i] = VALUES[Math.min(COUNT - 1, (int) ((long) COUNT * (i + 1) / BUCKET_COUNT))]; }
+        return BREAKS;
+    }
+
+    // Index of the first break that is greater than the value
+    private static int bucketOf(final double[] BREAKS, final double VALUE) {
+        int low  = 0;
+        int high = BREAKS.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (VALUE < BREAKS[middle]) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    // Countries have to be repainted afterwards
+    private void createLookupTable(final int BUCKET_COUNT) {
+        lookupTable = createLookupTable(colors, BUCKET_COUNT);
+        repaintAll  = true;
+    }
+
+    // Interpolates the colors into one color per bucket
+    private static Color[] createLookupTable(final Color[] COLORS, final int BUCKET_COUNT) {
+        final Color[] LOOKUP_TABLE = new Color[BUCKET_COUNT];
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            if (1 == COLORS.length || 1 == BUCKET_COUNT) {
+                LOOKUP_TABLE[bucket] = COLORS[0];
+                continue;
+            }
+            double position = (double) bucket / (BUCKET_COUNT - 1) * (COLORS.length - 1);
+            int    index    = Math.min(COLORS.length - 2, (int) position);
+            LOOKUP_TABLE[bucket] = COLORS[index].interpolate(COLORS[index + 1], position - index);
+        }
+        return LOOKUP_TABLE;
+    }
+}
@@ -20,6 +20,7 @@ import javafx.scene.paint.Color;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 
 /**
@@ -54,18 +55,38 @@ public enum Country {
 
     private ValueObject value;
     private Color       color;
+    private Locale      locale;
+    private String      displayName;
 
 
     // ******************** Constructors **************************************
     Country() {
-        value = null;
-        color = null;
+        value       = null;
+        color       = null;
+        locale      = null;
+        displayName = null;
     }
 
 
     // ******************** Methods *******************************************
     public String getName() { return name(); }
 
+    public Locale getLocale() {
+        if (null == locale) { locale = new Locale("", name()); }
+        return locale;
+    }
+
+    /**
+     * The name is looked up in the default locale on the first call and
+     * cached, it is shared by all paths and tooltips of the country.
+     * @return the name of the country in the language of the default locale
+     */
+    public String getDisplayName() {
+        if (null == displayName) { displayName = getLocale().getDisplayCountry(); }
+        return displayName;
+    }
+
+    // Not thread safe, use World.submit() to update countries from other threads
     public ValueObject getValue() { return value; }
     public void setValue(final ValueObject VALUE) { value = VALUE; }
 
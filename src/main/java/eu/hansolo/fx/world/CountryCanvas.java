@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Draws all countries of a Geometry into one Canvas that covers the visible
+ * part of the map plus a margin. The canvas is rendered with a pixel scale
+ * that follows the zoom level and is moved and scaled back into map
+ * coordinates by transforms, it is only redrawn completely when the viewport
+ * leaves the covered area. Fill changes only redraw the area of the changed
+ * countries.
+ */
+class CountryCanvas extends Canvas implements CountryRenderer {
+    private static final double                MAX_CANVAS_SIZE = 4096;
+    private static final double                STROKE_WIDTH    = 0.2;
+    private static final double                VIEWPORT_MARGIN = 0.25;
+    private        final double                MAP_WIDTH;
+    private        final double                MAP_HEIGHT;
+    private        final Geometry              GEOMETRY;
+    private        final List<CountryGeometry> DRAW_ORDER;
+    private        final Color[]               FILLS;
+    private        final Set<Country>          DIRTY;
+    private        final Translate             TRANSLATE;
+    private        final Scale                 SCALE;
+    private              Color                 stroke;
+    private              double                pixelScale;
+    private              double                requestedPixelScale;
+    private              double                viewMinX;
+    private              double                viewMinY;
+    private              double                viewMaxX;
+    private              double                viewMaxY;
+    private              double                areaMinX;
+    private              double                areaMinY;
+    private              double                areaMaxX;
+    private              double                areaMaxY;
+    private              boolean               layoutPending;
+    private              boolean               redrawPending;
+
+
+    // ******************** Constructors **************************************
+    CountryCanvas(final Geometry GEOMETRY, final double MAP_WIDTH, final double MAP_HEIGHT) {
+        this.GEOMETRY            = GEOMETRY;
+        this.MAP_WIDTH           = MAP_WIDTH;
+        this.MAP_HEIGHT          = MAP_HEIGHT;
+        this.DRAW_ORDER          = new ArrayList<>(GEOMETRY.getCountryGeometries());
+        this.FILLS               = new Color[Country.values().length];
+        this.DIRTY               = EnumSet.noneOf(Country.class);
+        this.TRANSLATE           = new Translate(0, 0);
+        this.SCALE               = new Scale(1, 1, 0, 0);
+        this.stroke              = Color.BLACK;
+        this.pixelScale          = 0;
+        this.viewMaxX            = MAP_WIDTH;
+        this.viewMaxY            = MAP_HEIGHT;
+        this.requestedPixelScale = 1;
+        getTransforms().addAll(TRANSLATE, SCALE);
+        layoutCanvas();
+        scheduleRedraw();
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override public Node getNode() { return this; }
+
+    @Override public Geometry getGeometry() { return GEOMETRY; }
+
+    @Override public void setFill(final Country COUNTRY, final Color FILL) {
+        if (null == GEOMETRY.get(COUNTRY) || FILL.equals(FILLS[COUNTRY.ordinal()])) { return; }
+        FILLS[COUNTRY.ordinal()] = FILL;
+        DIRTY.add(COUNTRY);
+        scheduleRedraw();
+    }
+
+    @Override public void setStroke(final Color STROKE) {
+        if (STROKE.equals(stroke)) { return; }
+        stroke = STROKE;
+        DIRTY.addAll(GEOMETRY.getCountries());
+        scheduleRedraw();
+    }
+
+    /**
+     * Sets the number of canvas pixels per map unit. The size of the canvas is
+     * limited to MAX_CANVAS_SIZE pixels, beyond that the bitmap will be scaled.
+     * @param PIXEL_SCALE canvas pixels per map unit
+     */
+    @Override public void setPixelScale(final double PIXEL_SCALE) {
+        // Avoid reallocating the canvas for small zoom steps
+        if (Math.abs(PIXEL_SCALE - requestedPixelScale) < 0.1 * requestedPixelScale) { return; }
+        requestedPixelScale = PIXEL_SCALE;
+        scheduleLayout();
+    }
+
+    @Override public void setViewport(final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y) {
+        viewMinX = MIN_X;
+        viewMinY = MIN_Y;
+        viewMaxX = MAX_X;
+        viewMaxY = MAX_Y;
+        if (Math.max(0, MIN_X) >= areaMinX && Math.max(0, MIN_Y) >= areaMinY &&
+            Math.min(MAP_WIDTH, MAX_X) <= areaMaxX && Math.min(MAP_HEIGHT, MAX_Y) <= areaMaxY) { return; }
+        scheduleLayout();
+    }
+
+    // The canvas only covers a part of the map, the pane it lives in is sized as if it covered all of it
+    @Override public double prefWidth(final double HEIGHT) { return MAP_WIDTH; }
+    @Override public double prefHeight(final double WIDTH) { return MAP_HEIGHT; }
+
+    @Override public Country getCountryAt(final double X, final double Y) {
+        for (int i = DRAW_ORDER.size() - 1; i >= 0; i--) {
+            CountryGeometry countryGeometry = DRAW_ORDER.get(i);
+            if (countryGeometry.contains(X, Y)) { return countryGeometry.getCountry(); }
+        }
+        return null;
+    }
+
+    private void scheduleLayout() {
+        layoutPending = true;
+        scheduleRedraw();
+    }
+
+    // Coalesces all fill and viewport changes of one pulse into one redraw
+    private void scheduleRedraw() {
+        if (redrawPending) { return; }
+        redrawPending = true;
+        Platform.runLater(this::redraw);
+    }
+
+    // Covers the viewport plus a margin on each side, so that small pans do not need a redraw
+    private void layoutCanvas() {
+        layoutPending = false;
+        double marginX = (viewMaxX - viewMinX) * VIEWPORT_MARGIN;
+        double marginY = (viewMaxY - viewMinY) * VIEWPORT_MARGIN;
+        areaMinX = Math.max(0, viewMinX - marginX);
+        areaMinY = Math.max(0, viewMinY - marginY);
+        areaMaxX = Math.min(MAP_WIDTH, viewMaxX + marginX);
+        areaMaxY = Math.min(MAP_HEIGHT, viewMaxY + marginY);
+        if (areaMaxX <= areaMinX || areaMaxY <= areaMinY) {
+            areaMinX = 0;
+            areaMinY = 0;
+            areaMaxX = MAP_WIDTH;
+            areaMaxY = MAP_HEIGHT;
+        }
+        pixelScale = Math.max(1, Math.min(requestedPixelScale, MAX_CANVAS_SIZE / Math.max(areaMaxX - areaMinX, areaMaxY - areaMinY)));
+        setWidth(Math.ceil((areaMaxX - areaMinX) * pixelScale));
+        setHeight(Math.ceil((areaMaxY - areaMinY) * pixelScale));
+        TRANSLATE.setX(areaMinX);
+        TRANSLATE.setY(areaMinY);
+        SCALE.setX(1 / pixelScale);
+        SCALE.setY(1 / pixelScale);
+        DIRTY.addAll(GEOMETRY.getCountries());
+    }
+
+    void redraw() {
+        redrawPending = false;
+        if (layoutPending) { layoutCanvas(); }
+        if (DIRTY.isEmpty()) { return; }
+        GraphicsContext ctx = getGraphicsContext2D();
+        ctx.setTransform(pixelScale, 0, 0, pixelScale, -areaMinX * pixelScale, -areaMinY * pixelScale);
+        ctx.setLineWidth(STROKE_WIDTH);
+        ctx.setStroke(stroke);
+        if (DIRTY.size() > DRAW_ORDER.size() / 4) {
+            ctx.clearRect(areaMinX, areaMinY, areaMaxX - areaMinX, areaMaxY - areaMinY);
+            for (CountryGeometry countryGeometry : DRAW_ORDER) {
+                if (countryGeometry.intersects(areaMinX, areaMinY, areaMaxX, areaMaxY)) { drawCountry(ctx, countryGeometry); }
+            }
+        } else {
+            for (Country country : DIRTY) {
+                CountryGeometry dirty = GEOMETRY.get(country);
+                if (!dirty.intersects(areaMinX, areaMinY, areaMaxX, areaMaxY)) { continue; }
+                double          minX  = dirty.getMinX() - STROKE_WIDTH;
+                double          minY  = dirty.getMinY() - STROKE_WIDTH;
+                double          maxX  = dirty.getMaxX() + STROKE_WIDTH;
+                double          maxY  = dirty.getMaxY() + STROKE_WIDTH;
+                ctx.save();
+                ctx.beginPath();
+                ctx.rect(minX, minY, maxX - minX, maxY - minY);
+                ctx.clip();
+                ctx.clearRect(minX, minY, maxX - minX, maxY - minY);
+                // Neighbours that overlap the dirty area have to be redrawn in their original order
+                for (CountryGeometry countryGeometry : DRAW_ORDER) {
+                    if (countryGeometry.intersects(minX, minY, maxX, maxY)) { drawCountry(ctx, countryGeometry); }
+                }
+                ctx.restore();
+            }
+        }
+        DIRTY.clear();
+    }
+
+    private void drawCountry(final GraphicsContext CTX, final CountryGeometry COUNTRY_GEOMETRY) {
+        Color fill = FILLS[COUNTRY_GEOMETRY.getCountry().ordinal()];
+        CTX.setFill(null == fill ? Color.TRANSPARENT : fill);
+        for (int p = 0; p < COUNTRY_GEOMETRY.getPathCount(); p++) {
+            CTX.beginPath();
+            for (float[] ring : COUNTRY_GEOMETRY.getRings(p)) {
+                CTX.moveTo(ring[0], ring[1]);
+                for (int i = 2; i < ring.length; i += 2) { CTX.lineTo(ring[i], ring[i + 1]); }
+                CTX.closePath();
+            }
+            CTX.fill();
+            CTX.stroke();
+        }
+    }
+}
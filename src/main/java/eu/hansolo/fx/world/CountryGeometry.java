@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Immutable outline of one country in map coordinates (the 1009 x 665 space
+ * used by World). A country consists of one or more paths (one CountryPath
+ * per path) and every path consists of closed rings stored as interleaved
+ * x/y float arrays.
+ */
+public class CountryGeometry {
+    private static final int         OBJECT_BYTES    = 16;
+    private static final int         ARRAY_BYTES     = 16;
+    private static final int         REFERENCE_BYTES = 4;
+    private        final Country     COUNTRY;
+    private        final float[][][] PATHS;
+    private        final double      MIN_X;
+    private        final double      MIN_Y;
+    private        final double      MAX_X;
+    private        final double      MAX_Y;
+    private        final int         POINT_COUNT;
+    private        final String[]    CONTENTS;
+
+
+    // ******************** Constructors **************************************
+    public CountryGeometry(final Country COUNTRY, final float[][][] PATHS) {
+        this.COUNTRY = COUNTRY;
+        this.PATHS   = PATHS;
+
+        double minX       = Double.MAX_VALUE;
+        double minY       = Double.MAX_VALUE;
+        double maxX       = -Double.MAX_VALUE;
+        double maxY       = -Double.MAX_VALUE;
+        int    pointCount = 0;
+        for (float[][] path : PATHS) {
+            for (float[] ring : path) {
+                for (int i = 0; i < ring.length; i += 2) {
+                    minX = Math.min(minX, ring[i]);
+                    maxX = Math.max(maxX, ring[i]);
+                    minY = Math.min(minY, ring[i + 1]);
+                    maxY = Math.max(maxY, ring[i + 1]);
+                }
+                pointCount += ring.length / 2;
+            }
+        }
+        MIN_X       = minX;
+        MIN_Y       = minY;
+        MAX_X       = maxX;
+        MAX_Y       = maxY;
+        POINT_COUNT = pointCount;
+        CONTENTS    = new String[PATHS.length];
+    }
+
+
+    // ******************** Methods *******************************************
+    public Country getCountry() { return COUNTRY; }
+
+    public int getPathCount() { return PATHS.length; }
+
+    /**
+     * Returns the rings of the path with the given index. The returned arrays
+     * are shared and must not be modified.
+     * @param PATH_INDEX index of the path
+     * @return rings of interleaved x/y coordinates
+     */
+    public float[][] getRings(final int PATH_INDEX) { return PATHS[PATH_INDEX]; }
+
+    public int getPointCount() { return POINT_COUNT; }
+
+    public double getMinX() { return MIN_X; }
+    public double getMinY() { return MIN_Y; }
+    public double getMaxX() { return MAX_X; }
+    public double getMaxY() { return MAX_Y; }
+
+    public boolean intersects(final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y) {
+        return this.MAX_X >= MIN_X && this.MIN_X <= MAX_X && this.MAX_Y >= MIN_Y && this.MIN_Y <= MAX_Y;
+    }
+
+    /**
+     * Returns true if the given point in map coordinates lies inside one of the
+     * paths of this country. Uses the non-zero winding rule over all rings of
+     * a path, like SVGPath, Canvas and Java2D do when they fill the paths.
+     * @param X x coordinate in map coordinates
+     * @param Y y coordinate in map coordinates
+     * @return true if the point is inside of the country
+     */
+    public boolean contains(final double X, final double Y) {
+        if (X < MIN_X || X > MAX_X || Y < MIN_Y || Y > MAX_Y) { return false; }
+        for (float[][] rings : PATHS) {
+            int winding = 0;
+            for (float[] ring : rings) {
+                for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                    double yi = ring[i + 1];
+                    double yj = ring[j + 1];
+                    if ((yi > Y) != (yj > Y) && X < (ring[j] - ring[i]) * (Y - yi) / (yj - yi) + ring[i]) { winding += yi > yj ? 1 : -1; }
+                }
+            }
+            if (0 != winding) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the content of the path with the given index in svg path syntax
+     * so that it can be set on a CountryPath. The first point of every ring is
+     * absolute, all other points are relative to keep the content short.
+     * The content is created once and shared by all World instances.
+     * @param PATH_INDEX index of the path
+     * @return svg path content
+     */
+    public String toSvgContent(final int PATH_INDEX) {
+        // Racy but benign, in the worst case two threads create equal strings
+        String content = CONTENTS[PATH_INDEX];
+        if (null == content) {
+            content = createSvgContent(PATHS[PATH_INDEX]);
+            CONTENTS[PATH_INDEX] = content;
+        }
+        return content;
+    }
+
+    /**
+     * Returns an estimate of the heap that is retained by this geometry
+     * including the svg contents that have been created so far.
+     * @return estimated retained bytes
+     */
+    public long getRetainedBytes() {
+        long bytes = OBJECT_BYTES + ARRAY_BYTES + PATHS.length * REFERENCE_BYTES + ARRAY_BYTES + CONTENTS.length * REFERENCE_BYTES;
+        for (float[][] rings : PATHS) {
+            bytes += ARRAY_BYTES + rings.length * REFERENCE_BYTES;
+            for (float[] ring : rings) { bytes += ARRAY_BYTES + ring.length * 4L; }
+        }
+        for (String content : CONTENTS) {
+            // String object plus its char array
+            if (null != content) { bytes += OBJECT_BYTES + ARRAY_BYTES + content.length() * 2L; }
+        }
+        return bytes;
+    }
+
+    private static String createSvgContent(final float[][] RINGS) {
+        int length = 0;
+        for (float[] ring : RINGS) { length += ring.length * 12 + 48; }
+        // Svg path content is plain ascii, writing bytes avoids the StringBuilder overhead per character
+        byte[] content = new byte[length];
+        int    index   = 0;
+        for (float[] ring : RINGS) {
+            int lastX = Math.round(ring[0] * 1000f);
+            int lastY = Math.round(ring[1] * 1000f);
+            content[index++] = 'M';
+            index = writeThousandths(content, index, lastX);
+            content[index++] = ',';
+            index = writeThousandths(content, index, lastY);
+            content[index++] = 'l';
+            for (int i = 2; i < ring.length; i += 2) {
+                int x = Math.round(ring[i] * 1000f);
+                int y = Math.round(ring[i + 1] * 1000f);
+                if (i > 2) { content[index++] = ' '; }
+                index = writeThousandths(content, index, x - lastX);
+                content[index++] = ',';
+                index = writeThousandths(content, index, y - lastY);
+                lastX = x;
+                lastY = y;
+            }
+            content[index++] = 'z';
+        }
+        return new String(content, 0, index, StandardCharsets.ISO_8859_1);
+    }
+
+    // Coordinates are written with up to three decimals which is the precision of the source data
+    private static int writeThousandths(final byte[] CONTENT, final int INDEX, final int VALUE) {
+        int index = INDEX;
+        int value = VALUE;
+        if (value < 0) {
+            CONTENT[index++] = '-';
+            value = -value;
+        }
+        int integer  = value / 1000;
+        int fraction = value - integer * 1000;
+        if (integer >= 10) {
+            int digits = integer >= 1000 ? 4 : integer >= 100 ? 3 : 2;
+            for (int i = index + digits - 1 ; i >= index ; i--) {
+                CONTENT[i] = (byte) ('0' + integer % 10);
+                integer /= 10;
+            }
+            index += digits;
+        } else {
+            CONTENT[index++] = (byte) ('0' + integer);
+        }
+        if (fraction != 0) {
+            CONTENT[index++] = '.';
+            CONTENT[index++] = (byte) ('0' + fraction / 100);
+            fraction %= 100;
+            if (fraction != 0) {
+                CONTENT[index++] = (byte) ('0' + fraction / 10);
+                fraction %= 10;
+                if (fraction != 0) { CONTENT[index++] = (byte) ('0' + fraction); }
+            }
+        }
+        return index;
+    }
+}
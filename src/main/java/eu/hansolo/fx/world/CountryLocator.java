@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Resolves latitude/longitude to the Country that contains it by using the
+ * country outlines of the map.
+ * A uniform grid over the map stores for every cell that is not crossed by a
+ * border the one country that covers it (or none). For cells that are crossed
+ * by a border it stores per country path the winding number of a reference
+ * point of the cell and the border segments that cross the cell. The winding
+ * number of a position in such a cell is the one of the reference point plus
+ * the signed crossings of the line between them with the border segments, so
+ * only a few segments are tested instead of the whole outline. Like the
+ * renderers, a position is inside if its winding number is not zero.
+ * Instances are immutable and thread safe and don't need the FX toolkit.
+ */
+public class CountryLocator {
+    private static final double    CELL_SIZE = 2;
+    // Reference point inside of a cell, slightly off center because borders often run exactly through cell centers
+    private static final double    REFERENCE = 0.5 + Math.PI * 1e-4;
+    private static final int       NONE      = -1;
+    private static final int       BORDER    = -2;
+    private static final Country[] COUNTRIES = Country.values();
+    private        final int       COLUMNS;
+    private        final int       ROWS;
+    private        final int[]     CELLS;
+    private        final int[]     ENTRY_STARTS;
+    private        final int[]     ENTRY_ORDINALS;
+    private        final int[]     ENTRY_REFERENCE_WINDINGS;
+    private        final int[]     SEGMENT_STARTS;
+    private        final float[]   SEGMENTS;
+
+
+    // ******************** Constructors **************************************
+    public CountryLocator() {
+        this(Resolution.HI_RES);
+    }
+    public CountryLocator(final Resolution RESOLUTION) {
+        this(GeometryCache.get(RESOLUTION));
+    }
+    public CountryLocator(final Geometry GEOMETRY) {
+        COLUMNS = (int) Math.ceil(MapProjection.MAP_WIDTH / CELL_SIZE);
+        ROWS    = (int) Math.ceil(MapProjection.MAP_HEIGHT / CELL_SIZE);
+        CELLS   = new int[COLUMNS * ROWS];
+
+        // Smaller countries first, so enclaves win over the country around them
+        List<CountryGeometry> countries = new ArrayList<>(GEOMETRY.getCountryGeometries());
+        countries.sort(Comparator.comparingDouble(c -> (c.getMaxX() - c.getMinX()) * (c.getMaxY() - c.getMinY())));
+
+        Builder builder = new Builder(CELLS.length);
+        for (CountryGeometry countryGeometry : countries) {
+            for (int p = 0; p < countryGeometry.getPathCount(); p++) { addPath(builder, countryGeometry.getCountry().ordinal(), countryGeometry.getRings(p)); }
+        }
+
+        // Cells without border segments are resolved to the first country that covers their reference point
+        int entryCount   = 0;
+        int segmentCount = 0;
+        for (int cell = 0; cell < CELLS.length; cell++) {
+            List<Entry> entries = builder.cells.get(cell);
+            if (null == entries) {
+                CELLS[cell] = NONE;
+                continue;
+            }
+            boolean border = false;
+            for (Entry entry : entries) { border |= entry.segments.length > 0; }
+            if (border) {
+                CELLS[cell]  = BORDER;
+                entryCount  += entries.size();
+                for (Entry entry : entries) { segmentCount += entry.segments.length; }
+            } else {
+                CELLS[cell]         = entries.get(0).ordinal;
+                builder.cells.set(cell, null);
+            }
+        }
+        ENTRY_STARTS             = new int[CELLS.length + 1];
+        ENTRY_ORDINALS           = new int[entryCount];
+        ENTRY_REFERENCE_WINDINGS = new int[entryCount];
+        SEGMENT_STARTS           = new int[entryCount + 1];
+        SEGMENTS                 = new float[segmentCount];
+        int entryIndex   = 0;
+        int segmentIndex = 0;
+        for (int cell = 0; cell < CELLS.length; cell++) {
+            ENTRY_STARTS[cell] = entryIndex;
+            if (BORDER != CELLS[cell]) { continue; }
+            for (Entry entry : builder.cells.get(cell)) {
+                ENTRY_ORDINALS[entryIndex]           = entry.ordinal;
+                ENTRY_REFERENCE_WINDINGS[entryIndex] = entry.referenceWinding;
+                SEGMENT_STARTS[entryIndex]           = segmentIndex;
+                System.arraycopy(entry.segments, 0, SEGMENTS, segmentIndex, entry.segments.length);
+                segmentIndex += entry.segments.length;
+                entryIndex++;
+            }
+        }
+        ENTRY_STARTS[CELLS.length] = entryIndex;
+        SEGMENT_STARTS[entryCount] = segmentIndex;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the country that contains the given position or null if the
+     * position is not within any country e.g. on the sea.
+     * @param LATITUDE latitude in degrees
+     * @param LONGITUDE longitude in degrees
+     * @return country at the given position or null
+     */
+    public Country locate(final double LATITUDE, final double LONGITUDE) {
+        int ordinal = locateOrdinal(MapProjection.longitudeToX(LONGITUDE), MapProjection.latitudeToY(LATITUDE));
+        return NONE == ordinal ? null : COUNTRIES[ordinal];
+    }
+
+    /**
+     * Bulk variant of locate() that works on primitive arrays. The results are
+     * the ordinals of the countries (see Country.values()) or -1 for positions
+     * that are not within any country.
+     * @param LATITUDES latitudes in degrees
+     * @param LONGITUDES longitudes in degrees
+     * @param ORDINALS array that will be filled with the results
+     * @param COUNT number of positions to locate
+     * @return number of positions that are within a country
+     */
+    public int locate(final double[] LATITUDES, final double[] LONGITUDES, final int[] ORDINALS, final int COUNT) {
+        int found = 0;
+        for (int i = 0; i < COUNT; i++) {
+            int ordinal = locateOrdinal(MapProjection.longitudeToX(LONGITUDES[i]), MapProjection.latitudeToY(LATITUDES[i]));
+            ORDINALS[i] = ordinal;
+            if (NONE != ordinal) { found++; }
+        }
+        return found;
+    }
+
+    private int locateOrdinal(final double X, final double Y) {
+        if (!(X >= 0 && Y >= 0 && X < COLUMNS * CELL_SIZE && Y < ROWS * CELL_SIZE)) { return NONE; }
+        final int COLUMN = (int) (X / CELL_SIZE);
+        final int ROW    = (int) (Y / CELL_SIZE);
+        final int CELL   = ROW * COLUMNS + COLUMN;
+        int       value  = CELLS[CELL];
+        if (BORDER != value) { return value; }
+        final double REFERENCE_X = (COLUMN + REFERENCE) * CELL_SIZE;
+        final double REFERENCE_Y = (ROW + REFERENCE) * CELL_SIZE;
+        for (int e = ENTRY_STARTS[CELL], end = ENTRY_STARTS[CELL + 1]; e < end; e++) {
+            int winding = ENTRY_REFERENCE_WINDINGS[e];
+            for (int s = SEGMENT_STARTS[e], segmentsEnd = SEGMENT_STARTS[e + 1]; s < segmentsEnd; s += 4) {
+                winding += crossing(REFERENCE_X, REFERENCE_Y, X, Y, SEGMENTS[s], SEGMENTS[s + 1], SEGMENTS[s + 2], SEGMENTS[s + 3]);
+            }
+            if (0 != winding) { return ENTRY_ORDINALS[e]; }
+        }
+        return NONE;
+    }
+
+    // Change of the winding number from R to P if the segment R-P crosses the segment A-B, otherwise 0
+    private static int crossing(final double RX, final double RY, final double PX, final double PY,
+                                final double AX, final double AY, final double BX, final double BY) {
+        double r = (BX - AX) * (RY - AY) - (BY - AY) * (RX - AX);
+        double p = (BX - AX) * (PY - AY) - (BY - AY) * (PX - AX);
+        if ((r > 0) == (p > 0)) { return 0; }
+        double a = (PX - RX) * (AY - RY) - (PY - RY) * (AX - RX);
+        double b = (PX - RX) * (BY - RY) - (PY - RY) * (BX - RX);
+        if ((a > 0) == (b > 0)) { return 0; }
+        // Points left of A-B have a winding number that is higher by one
+        return r > 0 ? -1 : 1;
+    }
+
+    /**
+     * Adds one path (non-zero winding rule over its rings) to all cells of its
+     * bounding box. The winding numbers of the reference points come from a
+     * scanline per row, the segments are added to every cell their bounds touch.
+     */
+    private void addPath(final Builder BUILDER, final int ORDINAL, final float[][] RINGS) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (float[] ring : RINGS) {
+            for (int i = 0; i < ring.length; i += 2) {
+                minX = Math.min(minX, ring[i]);
+                maxX = Math.max(maxX, ring[i]);
+                minY = Math.min(minY, ring[i + 1]);
+                maxY = Math.max(maxY, ring[i + 1]);
+            }
+        }
+        final int MIN_COLUMN = column(minX);
+        final int MIN_ROW    = row(minY);
+        final int WIDTH      = column(maxX) - MIN_COLUMN + 1;
+        final int HEIGHT     = row(maxY) - MIN_ROW + 1;
+
+        // Scanline through the reference points, crossings of rising and falling segments are kept apart
+        int[]          referenceWindings = new int[WIDTH * HEIGHT];
+        List<double[]> rising            = new ArrayList<>(HEIGHT);
+        List<double[]> falling           = new ArrayList<>(HEIGHT);
+        int[]          risingCounts      = new int[HEIGHT];
+        int[]          fallingCounts     = new int[HEIGHT];
+        for (int pass = 0; pass < 2; pass++) {
+            if (1 == pass) {
+                for (int r = 0; r < HEIGHT; r++) {
+                    rising.add(new double[risingCounts[r]]);
+                    falling.add(new double[fallingCounts[r]]);
+                }
+                Arrays.fill(risingCounts, 0);
+                Arrays.fill(fallingCounts, 0);
+            }
+            for (float[] ring : RINGS) {
+                for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                    double yi = ring[i + 1];
+                    double yj = ring[j + 1];
+                    int    r0 = Math.max(0, (int) Math.floor(Math.min(yi, yj) / CELL_SIZE - REFERENCE) - MIN_ROW);
+                    int    r1 = Math.min(HEIGHT - 1, (int) Math.ceil(Math.max(yi, yj) / CELL_SIZE - REFERENCE) - MIN_ROW);
+                    for (int r = r0; r <= r1; r++) {
+                        double y = (MIN_ROW + r + REFERENCE) * CELL_SIZE;
+                        if ((yi > y) == (yj > y)) { continue; }
+                        if (yi > yj) {
+                            if (1 == pass) { rising.get(r)[risingCounts[r]] = (ring[j] - ring[i]) * (y - yi) / (yj - yi) + ring[i]; }
+                            risingCounts[r]++;
+                        } else {
+                            if (1 == pass) { falling.get(r)[fallingCounts[r]] = (ring[j] - ring[i]) * (y - yi) / (yj - yi) + ring[i]; }
+                            fallingCounts[r]++;
+                        }
+                    }
+                }
+            }
+        }
+        for (int r = 0; r < HEIGHT; r++) {
+            double[] risingXs  = rising.get(r);
+            double[] fallingXs = falling.get(r);
+            Arrays.sort(risingXs);
+            Arrays.sort(fallingXs);
+            // The winding number of a reference point sums up the crossings right of it
+            int winding = 0;
+            for (int c = WIDTH - 1, k = risingXs.length - 1, l = fallingXs.length - 1; c >= 0; c--) {
+                double x = (MIN_COLUMN + c + REFERENCE) * CELL_SIZE;
+                for (; k >= 0 && risingXs[k] > x; k--) { winding++; }
+                for (; l >= 0 && fallingXs[l] > x; l--) { winding--; }
+                referenceWindings[r * WIDTH + c] = winding;
+            }
+        }
+
+        // Border segments per cell
+        int[]         segmentCounts = new int[WIDTH * HEIGHT];
+        List<float[]> cellSegments  = new ArrayList<>(WIDTH * HEIGHT);
+        for (int pass = 0; pass < 2; pass++) {
+            if (1 == pass) {
+                for (int cell = 0; cell < segmentCounts.length; cell++) { cellSegments.add(new float[segmentCounts[cell] * 4]); }
+                Arrays.fill(segmentCounts, 0);
+            }
+            for (float[] ring : RINGS) {
+                for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+                    int c0 = column(Math.min(ring[i], ring[j])) - MIN_COLUMN;
+                    int c1 = column(Math.max(ring[i], ring[j])) - MIN_COLUMN;
+                    int r0 = row(Math.min(ring[i + 1], ring[j + 1])) - MIN_ROW;
+                    int r1 = row(Math.max(ring[i + 1], ring[j + 1])) - MIN_ROW;
+                    for (int r = r0; r <= r1; r++) {
+                        for (int c = c0; c <= c1; c++) {
+                            int cell = r * WIDTH + c;
+                            if (1 == pass) {
+                                float[] segments = cellSegments.get(cell);
+                                int     offset   = segmentCounts[cell] * 4;
+                                segments[offset]     = ring[j];
+                                segments[offset + 1] = ring[j + 1];
+                                segments[offset + 2] = ring[i];
+                                segments[offset + 3] = ring[i + 1];
+                            }
+                            segmentCounts[cell]++;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int r = 0; r < HEIGHT; r++) {
+            for (int c = 0; c < WIDTH; c++) {
+                int local = r * WIDTH + c;
+                if (0 == segmentCounts[local] && 0 == referenceWindings[local]) { continue; }
+                BUILDER.add((MIN_ROW + r) * COLUMNS + MIN_COLUMN + c, new Entry(ORDINAL, referenceWindings[local], cellSegments.get(local)));
+            }
+        }
+    }
+
+    private int column(final double X) { return Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor(X / CELL_SIZE))); }
+
+    private int row(final double Y) { return Math.max(0, Math.min(ROWS - 1, (int) Math.floor(Y / CELL_SIZE))); }
+
+
+    // ******************** Inner Classes *************************************
+    private static class Entry {
+        private final int     ordinal;
+        private final int     referenceWinding;
+        private final float[] segments;
+
+
+        Entry(final int ORDINAL, final int REFERENCE_WINDING, final float[] SEGMENTS) {
+            ordinal          = ORDINAL;
+            referenceWinding = REFERENCE_WINDING;
+            segments         = SEGMENTS;
+        }
+    }
+
+    private static class Builder {
+        private final List<List<Entry>> cells;
+
+
+        Builder(final int CELL_COUNT) {
+            cells = new ArrayList<>(Collections.nCopies(CELL_COUNT, null));
+        }
+
+
+        void add(final int CELL, final Entry ENTRY) {
+            List<Entry> entries = cells.get(CELL);
+            if (null == entries) {
+                entries = new ArrayList<>(2);
+                cells.set(CELL, entries);
+            }
+            entries.add(ENTRY);
+        }
+    }
+}
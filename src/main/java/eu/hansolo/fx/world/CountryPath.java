@@ -27,8 +27,8 @@ import java.util.Locale;
  */
 public class CountryPath extends SVGPath {
     private final String  NAME;
-    private final Locale  LOCALE;
-    private final Tooltip TOOLTIP;
+    private final Country COUNTRY;
+    private       Tooltip tooltip;
 
 
     // ******************** Constructors **************************************
@@ -36,11 +36,19 @@ public class CountryPath extends SVGPath {
         this(NAME, null);
     }
     public CountryPath(final String NAME, final String CONTENT) {
+        this(NAME, toCountry(NAME), CONTENT);
+    }
+    public CountryPath(final Country COUNTRY) {
+        this(COUNTRY.getName(), COUNTRY, null);
+    }
+    public CountryPath(final Country COUNTRY, final String CONTENT) {
+        this(COUNTRY.getName(), COUNTRY, CONTENT);
+    }
+    private CountryPath(final String NAME, final Country COUNTRY, final String CONTENT) {
         super();
         this.NAME    = NAME;
-        this.LOCALE  = new Locale("", NAME);
-        this.TOOLTIP = new Tooltip(LOCALE.getDisplayCountry());
-        Tooltip.install(this, TOOLTIP);
+        this.COUNTRY = COUNTRY;
+        this.tooltip = null;
         if (null == CONTENT) return;
         setContent(CONTENT);
     }
@@ -49,7 +57,30 @@ public class CountryPath extends SVGPath {
     // ******************** Methods *******************************************
     public String getName() { return NAME; }
 
-    public Locale getLocale() { return LOCALE; }
+    /**
+     * @return the country of this path or null if the name is not a Country
+     */
+    public Country getCountry() { return COUNTRY; }
+
+    public Locale getLocale() { return null == COUNTRY ? new Locale("", NAME) : COUNTRY.getLocale(); }
 
-    public Tooltip getTooltip() { return TOOLTIP; }
+    /**
+     * The World installs one shared tooltip on the path that is hovered.
+     * @return the tooltip of the World while the path is hovered, otherwise null
+     */
+    public Tooltip getTooltip() { return tooltip; }
+    void setTooltip(final Tooltip TOOLTIP) {
+        if (TOOLTIP == tooltip) return;
+        if (null != tooltip) { Tooltip.uninstall(this, tooltip); }
+        tooltip = TOOLTIP;
+        if (null != tooltip) { Tooltip.install(this, tooltip); }
+    }
+
+    private static Country toCountry(final String NAME) {
+        try {
+            return Country.valueOf(NAME);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Software rasterizer for the countries of a Geometry based on Java2D. It
+ * does not need the FX toolkit, is immutable and can render on any number of
+ * threads at the same time. Colors are passed as 32 bit ARGB values indexed
+ * by the ordinal of the country. Like a CountryPath, a country with a fully
+ * transparent fill is not filled but its outline is still drawn.
+ */
+class CountryRasterizer {
+    static final double                STROKE_WIDTH = 0.2;
+    private final Geometry              GEOMETRY;
+    private final List<CountryGeometry> DRAW_ORDER;
+    private final Path2D.Float[][]      SHAPES;
+
+
+    // ******************** Constructors **************************************
+    CountryRasterizer(final Geometry GEOMETRY) {
+        this.GEOMETRY   = GEOMETRY;
+        this.DRAW_ORDER = new ArrayList<>(GEOMETRY.getCountryGeometries());
+        this.SHAPES     = new Path2D.Float[DRAW_ORDER.size()][];
+        for (int i = 0; i < DRAW_ORDER.size(); i++) {
+            CountryGeometry countryGeometry = DRAW_ORDER.get(i);
+            SHAPES[i] = new Path2D.Float[countryGeometry.getPathCount()];
+            for (int p = 0; p < countryGeometry.getPathCount(); p++) { SHAPES[i][p] = createShape(countryGeometry.getRings(p)); }
+        }
+    }
+
+
+    // ******************** Methods *******************************************
+    Geometry getGeometry() { return GEOMETRY; }
+
+    /**
+     * Renders the given area of the map into a new image.
+     * @param FILLS ARGB fill per country ordinal, a zero alpha only skips the fill
+     * @param STROKE ARGB color of the country borders
+     * @param MIN_X left edge of the area in map coordinates
+     * @param MIN_Y top edge of the area in map coordinates
+     * @param PIXEL_SCALE image pixels per map unit
+     * @param WIDTH width of the image in pixels
+     * @param HEIGHT height of the image in pixels
+     * @return image in premultiplied ARGB format
+     */
+    BufferedImage render(final int[] FILLS, final int STROKE, final double MIN_X, final double MIN_Y, final double PIXEL_SCALE, final int WIDTH, final int HEIGHT) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+        render(image.createGraphics(), FILLS, STROKE, MIN_X, MIN_Y, PIXEL_SCALE, WIDTH, HEIGHT);
+        return image;
+    }
+    /**
+     * Renders the given area of the map into the given graphics and disposes it.
+     */
+    void render(final Graphics2D G2, final int[] FILLS, final int STROKE, final double MIN_X, final double MIN_Y, final double PIXEL_SCALE, final int WIDTH, final int HEIGHT) {
+        final double MAX_X = MIN_X + WIDTH / PIXEL_SCALE;
+        final double MAX_Y = MIN_Y + HEIGHT / PIXEL_SCALE;
+        try {
+            G2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            G2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            G2.transform(new AffineTransform(PIXEL_SCALE, 0, 0, PIXEL_SCALE, -MIN_X * PIXEL_SCALE, -MIN_Y * PIXEL_SCALE));
+            G2.setStroke(new BasicStroke((float) STROKE_WIDTH));
+            final java.awt.Color STROKE_COLOR = new java.awt.Color(STROKE, true);
+            for (int i = 0; i < DRAW_ORDER.size(); i++) {
+                CountryGeometry countryGeometry = DRAW_ORDER.get(i);
+                int             fill            = FILLS[countryGeometry.getCountry().ordinal()];
+                if (!countryGeometry.intersects(MIN_X - STROKE_WIDTH, MIN_Y - STROKE_WIDTH, MAX_X + STROKE_WIDTH, MAX_Y + STROKE_WIDTH)) { continue; }
+                java.awt.Color fillColor = 0 == fill >>> 24 ? null : new java.awt.Color(fill, true);
+                for (Path2D.Float shape : SHAPES[i]) {
+                    if (null != fillColor) {
+                        G2.setColor(fillColor);
+                        G2.fill(shape);
+                    }
+                    G2.setColor(STROKE_COLOR);
+                    G2.draw(shape);
+                }
+            }
+        } finally {
+            G2.dispose();
+        }
+    }
+
+    /**
+     * @return the pixels of an image that was created by render()
+     */
+    static int[] getPixels(final BufferedImage IMAGE) { return ((DataBufferInt) IMAGE.getRaster().getDataBuffer()).getData(); }
+
+    static int toArgb(final javafx.scene.paint.Color COLOR) {
+        if (null == COLOR) { return 0; }
+        return (int) Math.round(COLOR.getOpacity() * 255) << 24 |
+               (int) Math.round(COLOR.getRed() * 255)     << 16 |
+               (int) Math.round(COLOR.getGreen() * 255)   << 8  |
+               (int) Math.round(COLOR.getBlue() * 255);
+    }
+
+    private static Path2D.Float createShape(final float[][] RINGS) {
+        Path2D.Float shape = new Path2D.Float(Path2D.WIND_NON_ZERO);
+        for (float[] ring : RINGS) {
+            shape.moveTo(ring[0], ring[1]);
+            for (int i = 2; i < ring.length; i += 2) { shape.lineTo(ring[i], ring[i + 1]); }
+            shape.closePath();
+        }
+        return shape;
+    }
+}
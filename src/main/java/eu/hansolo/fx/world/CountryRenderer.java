@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+
+
+/**
+ * Draws all countries of a Geometry in one node instead of one CountryPath
+ * per path, World does the hit testing through getCountryAt().
+ * All coordinates are map coordinates.
+ * Must only be used on the FX application thread.
+ */
+interface CountryRenderer {
+
+    Node getNode();
+
+    Geometry getGeometry();
+
+    void setFill(Country COUNTRY, Color FILL);
+
+    void setStroke(Color STROKE);
+
+    /**
+     * @param PIXEL_SCALE screen pixels per map unit
+     */
+    void setPixelScale(double PIXEL_SCALE);
+
+    /**
+     * Sets the part of the map that is visible on screen.
+     */
+    default void setViewport(double MIN_X, double MIN_Y, double MAX_X, double MAX_Y) {}
+
+    /**
+     * Returns the topmost country at the given position.
+     * @return country at the given position or null
+     */
+    Country getCountryAt(double X, double Y);
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Renders the countries of a Geometry into a pyramid of raster tiles of
+ * TILE_SIZE pixels. Level n has 2^n pixels per map unit, the level follows
+ * the zoom and only the tiles that intersect the viewport are shown.
+ * Tiles are rasterized on demand by a CountryRasterizer on background
+ * threads and kept in a LRU cache that is limited by the bytes of the tile
+ * images. A fill change only rerenders the tiles that intersect the bounds
+ * of the changed country, the former image stays visible until then.
+ * Must only be used on the FX application thread.
+ */
+class CountryTiles extends Region implements CountryRenderer {
+    static final         int                     TILE_SIZE          = 256;
+    static final         int                     MAX_LEVEL          = 5;
+    static final         long                    DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+    private static final ExecutorService         EXECUTOR           = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+        Thread thread = new Thread(runnable, "CountryTiles");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private        final double                  MAP_WIDTH;
+    private        final double                  MAP_HEIGHT;
+    private        final CountryRasterizer       RASTERIZER;
+    private        final List<CountryGeometry>   DRAW_ORDER;
+    private        final Color[]                 FILLS;
+    private        final int[]                   ARGB_FILLS;
+    private        final LinkedHashMap<Long, Tile> CACHE;
+    // Tiles that are being rendered, true if the result is outdated before it arrives
+    private        final Map<Long, Boolean>      PENDING;
+    // Tiles that are still needed when a render task starts, read by the render threads
+    private        final Set<Long>               WANTED;
+    private              Color                   stroke;
+    private              int                     argbStroke;
+    private              int                     level;
+    private              double                  viewMinX;
+    private              double                  viewMinY;
+    private              double                  viewMaxX;
+    private              double                  viewMaxY;
+    private              long                    cacheSize;
+    private              long                    cacheBytes;
+    private              boolean                 updatePending;
+
+
+    // ******************** Constructors **************************************
+    CountryTiles(final Geometry GEOMETRY, final double MAP_WIDTH, final double MAP_HEIGHT) {
+        this.MAP_WIDTH  = MAP_WIDTH;
+        this.MAP_HEIGHT = MAP_HEIGHT;
+        this.RASTERIZER = new CountryRasterizer(GEOMETRY);
+        this.DRAW_ORDER = new ArrayList<>(GEOMETRY.getCountryGeometries());
+        this.FILLS      = new Color[Country.values().length];
+        this.ARGB_FILLS = new int[Country.values().length];
+        this.CACHE      = new LinkedHashMap<>(64, 0.75f, true);
+        this.PENDING    = new HashMap<>();
+        this.WANTED     = ConcurrentHashMap.newKeySet();
+        this.stroke     = Color.BLACK;
+        this.argbStroke = CountryRasterizer.toArgb(stroke);
+        this.viewMaxX   = MAP_WIDTH;
+        this.viewMaxY   = MAP_HEIGHT;
+        this.cacheSize  = DEFAULT_CACHE_SIZE;
+        setPickOnBounds(true);
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override public Node getNode() { return this; }
+
+    @Override public Geometry getGeometry() { return RASTERIZER.getGeometry(); }
+
+    @Override public void setFill(final Country COUNTRY, final Color FILL) {
+        CountryGeometry countryGeometry = getGeometry().get(COUNTRY);
+        if (null == countryGeometry || FILL.equals(FILLS[COUNTRY.ordinal()])) { return; }
+        FILLS[COUNTRY.ordinal()]      = FILL;
+        ARGB_FILLS[COUNTRY.ordinal()] = CountryRasterizer.toArgb(FILL);
+        invalidate(countryGeometry.getMinX(), countryGeometry.getMinY(), countryGeometry.getMaxX(), countryGeometry.getMaxY());
+    }
+
+    @Override public void setStroke(final Color STROKE) {
+        if (STROKE.equals(stroke)) { return; }
+        stroke     = STROKE;
+        argbStroke = CountryRasterizer.toArgb(STROKE);
+        invalidate(0, 0, MAP_WIDTH, MAP_HEIGHT);
+    }
+
+    /**
+     * Picks the level with the least pixels per map unit that is not below
+     * the given pixel scale.
+     */
+    @Override public void setPixelScale(final double PIXEL_SCALE) {
+        int newLevel = (int) Math.max(0, Math.min(MAX_LEVEL, Math.ceil(Math.log(PIXEL_SCALE) / Math.log(2) - 1e-6)));
+        if (newLevel == level) { return; }
+        level = newLevel;
+        scheduleUpdate();
+    }
+
+    @Override public void setViewport(final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y) {
+        viewMinX = MIN_X;
+        viewMinY = MIN_Y;
+        viewMaxX = MAX_X;
+        viewMaxY = MAX_Y;
+        scheduleUpdate();
+    }
+
+    @Override public Country getCountryAt(final double X, final double Y) {
+        for (int i = DRAW_ORDER.size() - 1; i >= 0; i--) {
+            CountryGeometry countryGeometry = DRAW_ORDER.get(i);
+            if (countryGeometry.contains(X, Y)) { return countryGeometry.getCountry(); }
+        }
+        return null;
+    }
+
+    int getLevel() { return level; }
+
+    /**
+     * @return the maximum number of bytes the cached tile images may occupy
+     */
+    long getCacheSize() { return cacheSize; }
+    void setCacheSize(final long BYTES) {
+        cacheSize = Math.max(0, BYTES);
+        evict();
+    }
+
+    long getCacheBytes() { return cacheBytes; }
+
+    int getCachedTileCount() { return CACHE.size(); }
+
+    @Override protected double computePrefWidth(final double HEIGHT) { return MAP_WIDTH; }
+    @Override protected double computePrefHeight(final double WIDTH) { return MAP_HEIGHT; }
+
+    // Coalesces all viewport and fill changes of one pulse into one update
+    private void scheduleUpdate() {
+        if (updatePending) { return; }
+        updatePending = true;
+        Platform.runLater(this::update);
+    }
+
+    private void update() {
+        updatePending = false;
+        WANTED.clear();
+        List<Node> views    = new ArrayList<>();
+        boolean    complete = addTiles(level, views);
+        // Missing tiles are covered by the tiles of the first level until they arrive
+        if (!complete && level > 0) {
+            List<Node> background = new ArrayList<>();
+            addTiles(0, background);
+            views.addAll(0, background);
+        }
+        getChildren().setAll(views);
+    }
+
+    // Adds the views of all cached tiles of the level that intersect the viewport and requests the missing ones
+    private boolean addTiles(final int LEVEL, final List<Node> VIEWS) {
+        final double UNITS    = getTileUnits(LEVEL);
+        final int    MIN_TX   = (int) Math.max(0, Math.floor(viewMinX / UNITS));
+        final int    MIN_TY   = (int) Math.max(0, Math.floor(viewMinY / UNITS));
+        final int    MAX_TX   = (int) Math.min(Math.ceil(MAP_WIDTH / UNITS) - 1, Math.floor(viewMaxX / UNITS));
+        final int    MAX_TY   = (int) Math.min(Math.ceil(MAP_HEIGHT / UNITS) - 1, Math.floor(viewMaxY / UNITS));
+        boolean      complete = true;
+        for (int ty = MIN_TY; ty <= MAX_TY; ty++) {
+            for (int tx = MIN_TX; tx <= MAX_TX; tx++) {
+                long key  = createKey(LEVEL, tx, ty);
+                Tile tile = CACHE.get(key);
+                WANTED.add(key);
+                if (null == tile || tile.stale) { request(key); }
+                if (null == tile) {
+                    complete = false;
+                } else {
+                    VIEWS.add(tile.VIEW);
+                }
+            }
+        }
+        return complete;
+    }
+
+    private void request(final long KEY) {
+        if (PENDING.containsKey(KEY)) { return; }
+        PENDING.put(KEY, Boolean.FALSE);
+        final int[]  FILLS  = ARGB_FILLS.clone();
+        final int    STROKE = argbStroke;
+        final int    LEVEL  = getLevel(KEY);
+        final double UNITS  = getTileUnits(LEVEL);
+        final double MIN_X  = getTileX(KEY) * UNITS;
+        final double MIN_Y  = getTileY(KEY) * UNITS;
+        CompletableFuture.supplyAsync(() -> WANTED.contains(KEY) ? RASTERIZER.render(FILLS, STROKE, MIN_X, MIN_Y, 1 << LEVEL, TILE_SIZE, TILE_SIZE) : null, EXECUTOR)
+                         .whenComplete((IMAGE, THROWABLE) -> Platform.runLater(() -> install(KEY, IMAGE)));
+    }
+
+    private void install(final long KEY, final BufferedImage IMAGE) {
+        Boolean outdated = PENDING.remove(KEY);
+        if (null == outdated) { return; }
+        if (null == IMAGE) {
+            // The tile might have become wanted again while its task was skipped
+            if (WANTED.contains(KEY)) { scheduleUpdate(); }
+            return;
+        }
+        Tile tile = CACHE.get(KEY);
+        if (null == tile) {
+            tile = new Tile(KEY);
+            CACHE.put(KEY, tile);
+            cacheBytes += tile.BYTES;
+        }
+        tile.IMAGE.getPixelWriter().setPixels(0, 0, TILE_SIZE, TILE_SIZE, PixelFormat.getIntArgbPreInstance(), CountryRasterizer.getPixels(IMAGE), 0, TILE_SIZE);
+        tile.stale = outdated;
+        evict();
+        scheduleUpdate();
+    }
+
+    // Marks all cached and pending tiles that intersect the given area as outdated
+    private void invalidate(final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y) {
+        final double MIN_X_S = MIN_X - CountryRasterizer.STROKE_WIDTH;
+        final double MIN_Y_S = MIN_Y - CountryRasterizer.STROKE_WIDTH;
+        final double MAX_X_S = MAX_X + CountryRasterizer.STROKE_WIDTH;
+        final double MAX_Y_S = MAX_Y + CountryRasterizer.STROKE_WIDTH;
+        for (Tile tile : CACHE.values()) {
+            if (intersects(tile.KEY, MIN_X_S, MIN_Y_S, MAX_X_S, MAX_Y_S)) { tile.stale = true; }
+        }
+        for (Map.Entry<Long, Boolean> entry : PENDING.entrySet()) {
+            if (intersects(entry.getKey(), MIN_X_S, MIN_Y_S, MAX_X_S, MAX_Y_S)) { entry.setValue(Boolean.TRUE); }
+        }
+        scheduleUpdate();
+    }
+
+    // Removes the least recently used tiles until the cache fits into its size, visible tiles are kept
+    private void evict() {
+        Iterator<Tile> iterator = CACHE.values().iterator();
+        while (cacheBytes > cacheSize && iterator.hasNext()) {
+            Tile tile = iterator.next();
+            if (WANTED.contains(tile.KEY)) { continue; }
+            cacheBytes -= tile.BYTES;
+            iterator.remove();
+        }
+    }
+
+    private static boolean intersects(final long KEY, final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y) {
+        final double UNITS = getTileUnits(getLevel(KEY));
+        final double X     = getTileX(KEY) * UNITS;
+        final double Y     = getTileY(KEY) * UNITS;
+        return X < MAX_X && X + UNITS > MIN_X && Y < MAX_Y && Y + UNITS > MIN_Y;
+    }
+
+    // Map units that are covered by one tile of the given level
+    private static double getTileUnits(final int LEVEL) { return (double) TILE_SIZE / (1 << LEVEL); }
+
+    private static long createKey(final int LEVEL, final int TX, final int TY) { return (long) LEVEL << 48 | (long) TY << 24 | TX; }
+    private static int getLevel(final long KEY) { return (int) (KEY >>> 48); }
+    private static int getTileX(final long KEY) { return (int) (KEY & 0xFFFFFF); }
+    private static int getTileY(final long KEY) { return (int) (KEY >>> 24 & 0xFFFFFF); }
+
+
+    // ******************** Inner Classes *************************************
+    private static class Tile {
+        final long          KEY;
+        final long          BYTES;
+        final WritableImage IMAGE;
+        final ImageView     VIEW;
+        boolean             stale;
+
+
+        // ******************** Constructors **********************************
+        Tile(final long KEY) {
+            final double UNITS = getTileUnits(getLevel(KEY));
+            this.KEY   = KEY;
+            this.BYTES = 4L * TILE_SIZE * TILE_SIZE;
+            this.IMAGE = new WritableImage(TILE_SIZE, TILE_SIZE);
+            this.VIEW  = new ImageView(IMAGE);
+            VIEW.setManaged(false);
+            VIEW.setMouseTransparent(true);
+            VIEW.setSmooth(true);
+            VIEW.setLayoutX(getTileX(KEY) * UNITS);
+            VIEW.setLayoutY(getTileY(KEY) * UNITS);
+            VIEW.setFitWidth(UNITS);
+            VIEW.setFitHeight(UNITS);
+        }
+    }
+}
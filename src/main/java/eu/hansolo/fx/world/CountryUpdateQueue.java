@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import javafx.scene.paint.Color;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+
+/**
+ * Lock free queue of value and color updates per country that only keeps
+ * the last update of every country. Any thread can offer updates, the
+ * consumer drains one update per changed country no matter how often the
+ * country was updated in between.
+ */
+class CountryUpdateQueue {
+    private static final Country[]                      COUNTRIES = Country.values();
+    private        final AtomicReferenceArray<Update>   PENDING;
+    private        final ConcurrentLinkedQueue<Country> DIRTY;
+
+
+    // ******************** Constructors **************************************
+    CountryUpdateQueue() {
+        PENDING = new AtomicReferenceArray<>(COUNTRIES.length);
+        DIRTY   = new ConcurrentLinkedQueue<>();
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Replaces a pending update of the given country.
+     * @return true if the country had no pending update before
+     */
+    boolean offer(final Country COUNTRY, final ValueObject VALUE, final Color COLOR) {
+        if (null != PENDING.getAndSet(COUNTRY.ordinal(), new Update(COUNTRY, VALUE, COLOR))) return false;
+        DIRTY.offer(COUNTRY);
+        return true;
+    }
+
+    /**
+     * Hands the latest update of every changed country to the consumer.
+     * @return the number of countries that have been updated
+     */
+    int drain(final Consumer<Update> CONSUMER) {
+        int     count = 0;
+        Country country;
+        while (null != (country = DIRTY.poll())) {
+            Update update = PENDING.getAndSet(country.ordinal(), null);
+            if (null == update) continue;
+            CONSUMER.accept(update);
+            count++;
+        }
+        return count;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    static class Update {
+        final Country     COUNTRY;
+        final ValueObject VALUE;
+        final Color       COLOR;
+
+
+        // ******************** Constructors **********************************
+        Update(final Country COUNTRY, final ValueObject VALUE, final Color COLOR) {
+            this.COUNTRY = COUNTRY;
+            this.VALUE   = VALUE;
+            this.COLOR   = COLOR;
+        }
+    }
+}
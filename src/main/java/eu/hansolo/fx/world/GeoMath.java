@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+
+/**
+ * Great circle distances between a fixed set of positions on a sphere with
+ * the mean earth radius. The positions are converted once into 3D unit
+ * vectors that are kept in primitive arrays, a distance is the angle between
+ * two vectors and needs no trigonometry besides one atan2().
+ * Nearest neighbour queries use a KD-tree over the unit vectors, the
+ * straight line distance between two unit vectors grows with the great
+ * circle distance and can be compared instead.
+ * Immutable and thread safe, distance matrices and nearest assignments are
+ * computed in parallel on the common fork join pool.
+ */
+public final class GeoMath {
+    public  static final double     EARTH_RADIUS    = 6_371_000; // [m]
+    private static final double     RAD             = Math.PI / 180;
+    private static final int        MATRIX_GRAIN    = 16_384;    // distances per task
+    private static final int        NEAREST_GRAIN   = 1_024;     // queries per chunk
+    private        final int        COUNT;
+    private        final Location[] LOCATIONS;
+    private        final double[]   X;
+    private        final double[]   Y;
+    private        final double[]   Z;
+    // Indices of the positions in KD-tree order, the median of [from, to) is the node of the range
+    private        final int[]      TREE;
+    private        final byte[]     AXES;
+
+
+    // ******************** Constructors **************************************
+    /**
+     * @param LOCATIONS positions in the order of the indices that are used by all methods
+     */
+    public GeoMath(final Collection<Location> LOCATIONS) {
+        this(LOCATIONS.toArray(new Location[0]), null, null, LOCATIONS.size());
+    }
+    /**
+     * @param LATITUDES latitudes in degrees
+     * @param LONGITUDES longitudes in degrees
+     * @param COUNT number of positions
+     */
+    public GeoMath(final double[] LATITUDES, final double[] LONGITUDES, final int COUNT) {
+        this(null, LATITUDES, LONGITUDES, COUNT);
+    }
+    private GeoMath(final Location[] LOCATIONS, final double[] LATITUDES, final double[] LONGITUDES, final int COUNT) {
+        if (COUNT < 0 || (null != LATITUDES && (LATITUDES.length < COUNT || LONGITUDES.length < COUNT))) {
+            throw new IllegalArgumentException("Arrays must hold at least " + COUNT + " values");
+        }
+        this.COUNT     = COUNT;
+        this.LOCATIONS = LOCATIONS;
+        this.X         = new double[COUNT];
+        this.Y         = new double[COUNT];
+        this.Z         = new double[COUNT];
+        this.TREE      = new int[COUNT];
+        this.AXES      = new byte[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            double latitude  = (null == LOCATIONS ? LATITUDES[i] : LOCATIONS[i].getLatitude()) * RAD;
+            double longitude = (null == LOCATIONS ? LONGITUDES[i] : LOCATIONS[i].getLongitude()) * RAD;
+            double cosLat    = Math.cos(latitude);
+            X[i]    = cosLat * Math.cos(longitude);
+            Y[i]    = cosLat * Math.sin(longitude);
+            Z[i]    = Math.sin(latitude);
+            TREE[i] = i;
+        }
+        buildTree(0, COUNT);
+    }
+
+
+    // ******************** Methods *******************************************
+    public int size() { return COUNT; }
+
+    /**
+     * @return the location at the given index or null if the engine was created from arrays
+     */
+    public Location getLocation(final int INDEX) { return null == LOCATIONS ? null : LOCATIONS[INDEX]; }
+
+    /**
+     * Great circle distance between two positions.
+     * @return the distance in meters
+     */
+    public static double distance(final double LAT_1, final double LON_1, final double LAT_2, final double LON_2) {
+        final double SIN_LAT = Math.sin((LAT_2 - LAT_1) * RAD * 0.5);
+        final double SIN_LON = Math.sin((LON_2 - LON_1) * RAD * 0.5);
+        final double A       = SIN_LAT * SIN_LAT + Math.cos(LAT_1 * RAD) * Math.cos(LAT_2 * RAD) * SIN_LON * SIN_LON;
+        return EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(A), Math.sqrt(1 - A));
+    }
+
+    /**
+     * @return the distance in meters between the positions at the given indices
+     */
+    public double distance(final int I, final int J) { return angle(X[I], Y[I], Z[I], X[J], Y[J], Z[J]) * EARTH_RADIUS; }
+
+    /**
+     * @return the distance in meters between the position at the given index and the given position
+     */
+    public double distance(final int I, final double LATITUDE, final double LONGITUDE) {
+        final double COS_LAT = Math.cos(LATITUDE * RAD);
+        return angle(X[I], Y[I], Z[I], COS_LAT * Math.cos(LONGITUDE * RAD), COS_LAT * Math.sin(LONGITUDE * RAD), Math.sin(LATITUDE * RAD)) * EARTH_RADIUS;
+    }
+
+    /**
+     * Distances in meters from every position of this engine to every
+     * position of the given one, computed in parallel.
+     * @return row major matrix with size() rows and TARGETS.size() columns
+     * @throws IllegalArgumentException if the matrix exceeds the maximum array size
+     */
+    public double[] distanceMatrix(final GeoMath TARGETS) {
+        final double[] MATRIX = new double[matrixSize(TARGETS)];
+        distanceMatrix(TARGETS, MATRIX);
+        return MATRIX;
+    }
+    public void distanceMatrix(final GeoMath TARGETS, final double[] MATRIX) {
+        final int SIZE = matrixSize(TARGETS);
+        if (MATRIX.length < SIZE) { throw new IllegalArgumentException("Matrix must hold at least " + SIZE + " values"); }
+        if (0 == COUNT || 0 == TARGETS.COUNT) { return; }
+        final int ROWS_PER_TASK = Math.max(1, MATRIX_GRAIN / TARGETS.COUNT);
+        ForkJoinPool.commonPool().invoke(new MatrixTask(TARGETS, MATRIX, 0, COUNT, ROWS_PER_TASK));
+    }
+
+    // The matrix is stored in one array, its size must not exceed the maximum array length
+    private int matrixSize(final GeoMath TARGETS) {
+        final long SIZE = (long) COUNT * TARGETS.COUNT;
+        if (SIZE > Integer.MAX_VALUE - 8) { throw new IllegalArgumentException("Matrix of " + COUNT + " x " + TARGETS.COUNT + " = " + SIZE + " values exceeds the maximum array size"); }
+        return (int) SIZE;
+    }
+
+    /**
+     * @return the index of the position that is closest to the given position or -1 if there is none
+     */
+    public int nearest(final double LATITUDE, final double LONGITUDE) {
+        final int[] RESULT = nearest(LATITUDE, LONGITUDE, 1);
+        return 0 == RESULT.length ? -1 : RESULT[0];
+    }
+
+    /**
+     * Returns the K positions that are closest to the given position.
+     * @return indices of the positions sorted by distance, empty if K is not positive
+     */
+    public int[] nearest(final double LATITUDE, final double LONGITUDE, final int K) {
+        if (K <= 0 || 0 == COUNT) { return new int[0]; }
+        final double COS_LAT = Math.cos(LATITUDE * RAD);
+        final Query  QUERY   = new Query(Math.min(K, COUNT));
+        search(0, COUNT, COS_LAT * Math.cos(LONGITUDE * RAD), COS_LAT * Math.sin(LONGITUDE * RAD), Math.sin(LATITUDE * RAD), QUERY);
+        return QUERY.getIndices();
+    }
+
+    /**
+     * Finds the closest position of this engine for every position of the
+     * given one, e.g. the nearest hub of every customer, computed in parallel.
+     * @return index of the nearest position of this engine per position of POINTS
+     */
+    public int[] assignNearest(final GeoMath POINTS) {
+        final int[] RESULT = new int[POINTS.COUNT];
+        if (0 == COUNT) {
+            Arrays.fill(RESULT, -1);
+            return RESULT;
+        }
+        IntStream.range(0, (POINTS.COUNT + NEAREST_GRAIN - 1) / NEAREST_GRAIN).parallel().forEach(chunk -> {
+            final Query QUERY = new Query(1);
+            final int   TO    = Math.min(POINTS.COUNT, (chunk + 1) * NEAREST_GRAIN);
+            for (int i = chunk * NEAREST_GRAIN; i < TO; i++) {
+                QUERY.reset();
+                search(0, COUNT, POINTS.X[i], POINTS.Y[i], POINTS.Z[i], QUERY);
+                RESULT[i] = QUERY.INDICES[0];
+            }
+        });
+        return RESULT;
+    }
+
+    // Angle between two unit vectors, atan2 of sine and cosine is accurate for all distances
+    private static double angle(final double X1, final double Y1, final double Z1, final double X2, final double Y2, final double Z2) {
+        final double CX = Y1 * Z2 - Z1 * Y2;
+        final double CY = Z1 * X2 - X1 * Z2;
+        final double CZ = X1 * Y2 - Y1 * X2;
+        return Math.atan2(Math.sqrt(CX * CX + CY * CY + CZ * CZ), X1 * X2 + Y1 * Y2 + Z1 * Z2);
+    }
+
+    private double coordinate(final int INDEX, final int AXIS) { return 0 == AXIS ? X[INDEX] : 1 == AXIS ? Y[INDEX] : Z[INDEX]; }
+
+    // Splits every range at its median along the axis with the largest extent
+    private void buildTree(final int FROM, final int TO) {
+        if (TO - FROM < 2) { return; }
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (int i = FROM; i < TO; i++) {
+            int index = TREE[i];
+            minX = Math.min(minX, X[index]); maxX = Math.max(maxX, X[index]);
+            minY = Math.min(minY, Y[index]); maxY = Math.max(maxY, Y[index]);
+            minZ = Math.min(minZ, Z[index]); maxZ = Math.max(maxZ, Z[index]);
+        }
+        final double EXTENT_X = maxX - minX;
+        final double EXTENT_Y = maxY - minY;
+        final double EXTENT_Z = maxZ - minZ;
+        final int    AXIS     = EXTENT_X >= EXTENT_Y && EXTENT_X >= EXTENT_Z ? 0 : EXTENT_Y >= EXTENT_Z ? 1 : 2;
+        final int    MIDDLE   = (FROM + TO) >>> 1;
+        select(FROM, TO - 1, MIDDLE, AXIS);
+        AXES[MIDDLE] = (byte) AXIS;
+        buildTree(FROM, MIDDLE);
+        buildTree(MIDDLE + 1, TO);
+    }
+
+    // Quickselect, afterwards TREE[K] has the median and smaller values are left of it
+    private void select(int left, int right, final int K, final int AXIS) {
+        while (right > left) {
+            final double PIVOT = coordinate(TREE[(left + right) >>> 1], AXIS);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(TREE[i], AXIS) < PIVOT) { i++; }
+                while (coordinate(TREE[j], AXIS) > PIVOT) { j--; }
+                if (i <= j) {
+                    int swap = TREE[i];
+                    TREE[i++] = TREE[j];
+                    TREE[j--] = swap;
+                }
+            }
+            if (K <= j) {
+                right = j;
+            } else if (K >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void search(final int FROM, final int TO, final double QX, final double QY, final double QZ, final Query QUERY) {
+        if (FROM >= TO) { return; }
+        final int    MIDDLE = (FROM + TO) >>> 1;
+        final int    INDEX  = TREE[MIDDLE];
+        final double DX     = X[INDEX] - QX;
+        final double DY     = Y[INDEX] - QY;
+        final double DZ     = Z[INDEX] - QZ;
+        QUERY.offer(INDEX, DX * DX + DY * DY + DZ * DZ);
+        if (TO - FROM == 1) { return; }
+        final int    AXIS  = AXES[MIDDLE];
+        final double DELTA = (0 == AXIS ? QX : 1 == AXIS ? QY : QZ) - coordinate(INDEX, AXIS);
+        // Visit the side of the query first, the other side only if it can hold closer positions
+        if (DELTA < 0) {
+            search(FROM, MIDDLE, QX, QY, QZ, QUERY);
+            if (DELTA * DELTA < QUERY.getWorstDistance()) { search(MIDDLE + 1, TO, QX, QY, QZ, QUERY); }
+        } else {
+            search(MIDDLE + 1, TO, QX, QY, QZ, QUERY);
+            if (DELTA * DELTA < QUERY.getWorstDistance()) { search(FROM, MIDDLE, QX, QY, QZ, QUERY); }
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    // The K best candidates of a query sorted by squared chord length
+    private static class Query {
+        final int[]    INDICES;
+        final double[] DISTANCES;
+        int            size;
+
+        Query(final int K) {
+            INDICES   = new int[K];
+            DISTANCES = new double[K];
+        }
+
+        void reset() { size = 0; }
+
+        double getWorstDistance() { return size < INDICES.length ? Double.MAX_VALUE : DISTANCES[size - 1]; }
+
+        void offer(final int INDEX, final double DISTANCE) {
+            if (0 == INDICES.length || (size == INDICES.length && DISTANCE >= DISTANCES[size - 1])) { return; }
+            int i = size < INDICES.length ? size++ : size - 1;
+            while (i > 0 && DISTANCES[i - 1] > DISTANCE) {
+                INDICES[i]   = INDICES[i - 1];
+                DISTANCES[i] = DISTANCES[i - 1];
+                i--;
+            }
+            INDICES[i]   = INDEX;
+            DISTANCES[i] = DISTANCE;
+        }
+
+        int[] getIndices() { return Arrays.copyOf(INDICES, size); }
+    }
+
+    private class MatrixTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final GeoMath  TARGETS;
+        private final double[] MATRIX;
+        private final int      FROM;
+        private final int      TO;
+        private final int      ROWS_PER_TASK;
+
+        MatrixTask(final GeoMath TARGETS, final double[] MATRIX, final int FROM, final int TO, final int ROWS_PER_TASK) {
+            this.TARGETS       = TARGETS;
+            this.MATRIX        = MATRIX;
+            this.FROM          = FROM;
+            this.TO            = TO;
+            this.ROWS_PER_TASK = ROWS_PER_TASK;
+        }
+
+        @Override protected void compute() {
+            if (TO - FROM > ROWS_PER_TASK) {
+                final int MIDDLE = (FROM + TO) >>> 1;
+                invokeAll(new MatrixTask(TARGETS, MATRIX, FROM, MIDDLE, ROWS_PER_TASK), new MatrixTask(TARGETS, MATRIX, MIDDLE, TO, ROWS_PER_TASK));
+                return;
+            }
+            final int      COLUMNS = TARGETS.COUNT;
+            final double[] TX      = TARGETS.X;
+            final double[] TY      = TARGETS.Y;
+            final double[] TZ      = TARGETS.Z;
+            for (int row = FROM; row < TO; row++) {
+                final double X1     = X[row];
+                final double Y1     = Y[row];
+                final double Z1     = Z[row];
+                final int    OFFSET = row * COLUMNS;
+                for (int column = 0; column < COLUMNS; column++) {
+                    MATRIX[OFFSET + column] = angle(X1, Y1, Z1, TX[column], TY[column], TZ[column]) * EARTH_RADIUS;
+                }
+            }
+        }
+    }
+}
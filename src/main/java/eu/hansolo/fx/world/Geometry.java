@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+
+/**
+ * Immutable set of country outlines for one resolution. It is loaded from
+ * the precompiled binary geometry file (see GeometryCompiler) and falls back
+ * to parsing the resolution properties if the binary file is not available.
+ */
+public class Geometry {
+    private static final String                         HIRES_PROPERTIES = "eu/hansolo/fx/world/hires.properties";
+    private static final String                         LORES_PROPERTIES = "eu/hansolo/fx/world/lores.properties";
+    private static final String                         HIRES_GEOMETRY   = "eu/hansolo/fx/world/hires.geo";
+    private static final String                         LORES_GEOMETRY   = "eu/hansolo/fx/world/lores.geo";
+    private        final Map<Country, CountryGeometry> COUNTRIES;
+
+
+    // ******************** Constructors **************************************
+    public Geometry(final Map<Country, CountryGeometry> COUNTRIES) {
+        Map<Country, CountryGeometry> countries = new EnumMap<>(Country.class);
+        countries.putAll(COUNTRIES);
+        this.COUNTRIES = Collections.unmodifiableMap(countries);
+    }
+
+
+    // ******************** Methods *******************************************
+    public static Geometry load(final Resolution RESOLUTION) {
+        final ClassLoader LOADER = Thread.currentThread().getContextClassLoader();
+        try (InputStream resourceStream = LOADER.getResourceAsStream(Resolution.HI_RES == RESOLUTION ? HIRES_GEOMETRY : LORES_GEOMETRY)) {
+            if (null != resourceStream) { return GeometryFormat.read(resourceStream); }
+        } catch (IOException exception) {
+            System.out.println(exception);
+        }
+        return fromProperties(readProperties(Resolution.HI_RES == RESOLUTION ? HIRES_PROPERTIES : LORES_PROPERTIES));
+    }
+
+    public static Geometry fromProperties(final Properties PROPERTIES) {
+        Map<Country, CountryGeometry> countries = new EnumMap<>(Country.class);
+        PROPERTIES.forEach((key, value) -> {
+            Country     country = Country.valueOf(key.toString());
+            String[]    paths   = value.toString().split(";");
+            float[][][] rings   = new float[paths.length][][];
+            for (int i = 0; i < paths.length; i++) { rings[i] = SvgPathParser.parse(paths[i]); }
+            countries.put(country, new CountryGeometry(country, rings));
+        });
+        return new Geometry(countries);
+    }
+
+    static Properties readProperties(final String FILE_NAME) {
+        final ClassLoader LOADER     = Thread.currentThread().getContextClassLoader();
+        final Properties  PROPERTIES = new Properties();
+        try(InputStream resourceStream = LOADER.getResourceAsStream(FILE_NAME)) {
+            PROPERTIES.load(resourceStream);
+        } catch (IOException exception) {
+            System.out.println(exception);
+        }
+        return PROPERTIES;
+    }
+
+    public Set<Country> getCountries() { return COUNTRIES.keySet(); }
+
+    public CountryGeometry get(final Country COUNTRY) { return COUNTRIES.get(COUNTRY); }
+
+    public Collection<CountryGeometry> getCountryGeometries() { return COUNTRIES.values(); }
+
+    public long getRetainedBytes() {
+        long bytes = 0;
+        for (CountryGeometry countryGeometry : COUNTRIES.values()) { bytes += countryGeometry.getRetainedBytes(); }
+        return bytes;
+    }
+
+    public int getPointCount() {
+        int pointCount = 0;
+        for (CountryGeometry countryGeometry : COUNTRIES.values()) { pointCount += countryGeometry.getPointCount(); }
+        return pointCount;
+    }
+}
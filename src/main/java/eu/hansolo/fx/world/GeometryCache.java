@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * Process wide cache of the parsed geometry per resolution. Every World holds
+ * a strong reference to the geometry it uses, the cache itself only holds soft
+ * references. So the geometry is parsed once and shared as long as at least
+ * one World uses it and is only reclaimed under memory pressure afterwards.
+ * Simplified versions of the HI_RES geometry are cached the same way, one per
+ * power of two of the tolerance.
+ */
+public final class GeometryCache {
+    public  static final double                                         PIXEL_TOLERANCE = 0.5;
+    private static final int                                            MIN_LEVEL       = -4;
+    private static final int                                            MAX_LEVEL       = 6;
+    private static final Object[]                                       LOCKS           = new Object[Resolution.values().length];
+    private static final AtomicReferenceArray<SoftReference<Geometry>> CACHE           = new AtomicReferenceArray<>(Resolution.values().length);
+    private static final Object                                         SIMPLIFIED_LOCK = new Object();
+    private static final AtomicReferenceArray<SoftReference<Geometry>> SIMPLIFIED      = new AtomicReferenceArray<>(MAX_LEVEL - MIN_LEVEL + 1);
+    private static       SoftReference<GeometrySimplifier>              simplifier;
+    private static final AtomicLong                                     HITS            = new AtomicLong();
+    private static final AtomicLong                                     MISSES          = new AtomicLong();
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) { LOCKS[i] = new Object(); }
+    }
+
+
+    // ******************** Constructors **************************************
+    private GeometryCache() {}
+
+
+    // ******************** Methods *******************************************
+    public static Geometry get(final Resolution RESOLUTION) {
+        final int INDEX = RESOLUTION.ordinal();
+        // Only threads that ask for the same resolution wait for each other
+        synchronized (LOCKS[INDEX]) {
+            Geometry geometry = get(CACHE, INDEX);
+            if (null == geometry) {
+                MISSES.incrementAndGet();
+                geometry = Geometry.load(RESOLUTION);
+                CACHE.set(INDEX, new SoftReference<>(geometry));
+            } else {
+                HITS.incrementAndGet();
+            }
+            return geometry;
+        }
+    }
+
+    /**
+     * Returns the HI_RES geometry simplified by GeometrySimplifier. The
+     * tolerance is rounded down to a power of two between 1/16 and 64 map
+     * units, every level is simplified once. Tolerances below 1/16 return the
+     * HI_RES geometry itself.
+     * @param TOLERANCE max deviation from the HI_RES outlines in map units
+     * @return the simplified geometry
+     */
+    public static Geometry get(final double TOLERANCE) {
+        final double ROUNDED = getTolerance(TOLERANCE);
+        if (0 == ROUNDED) { return get(Resolution.HI_RES); }
+        final int INDEX = Math.getExponent(ROUNDED) - MIN_LEVEL;
+        // The simplifier prepares the topology once for all levels
+        synchronized (SIMPLIFIED_LOCK) {
+            Geometry geometry = get(SIMPLIFIED, INDEX);
+            if (null == geometry) {
+                MISSES.incrementAndGet();
+                GeometrySimplifier geometrySimplifier = null == simplifier ? null : simplifier.get();
+                if (null == geometrySimplifier) {
+                    geometrySimplifier = new GeometrySimplifier(get(Resolution.HI_RES));
+                    simplifier         = new SoftReference<>(geometrySimplifier);
+                }
+                geometry = geometrySimplifier.simplify(ROUNDED);
+                SIMPLIFIED.set(INDEX, new SoftReference<>(geometry));
+            } else {
+                HITS.incrementAndGet();
+            }
+            return geometry;
+        }
+    }
+
+    /**
+     * Returns the simplified geometry for the given tolerance if it has been
+     * simplified already and was not reclaimed, without waiting for a
+     * simplification that is in progress.
+     * @param TOLERANCE max deviation from the HI_RES outlines in map units
+     * @return the cached geometry or null
+     */
+    public static Geometry getIfCached(final double TOLERANCE) {
+        final double ROUNDED = getTolerance(TOLERANCE);
+        if (0 == ROUNDED) { return get(CACHE, Resolution.HI_RES.ordinal()); }
+        return get(SIMPLIFIED, Math.getExponent(ROUNDED) - MIN_LEVEL);
+    }
+
+    /**
+     * Returns the geometry with the detail that is needed at the given number
+     * of screen pixels per map unit, the outlines deviate by less than
+     * PIXEL_TOLERANCE pixels from HI_RES.
+     * @param PIXEL_SCALE screen pixels per map unit
+     * @return the simplified or the HI_RES geometry
+     */
+    public static Geometry getForPixelScale(final double PIXEL_SCALE) { return get(PIXEL_TOLERANCE / PIXEL_SCALE); }
+
+    /**
+     * @return the tolerance that get() uses for the given tolerance, 0 for the HI_RES geometry
+     */
+    public static double getTolerance(final double TOLERANCE) {
+        if (!(TOLERANCE >= Math.scalb(1.0, MIN_LEVEL))) { return 0; }
+        return Math.scalb(1.0, Math.min(MAX_LEVEL, Math.getExponent(TOLERANCE)));
+    }
+
+    public static long getHitCount() { return HITS.get(); }
+
+    public static long getMissCount() { return MISSES.get(); }
+
+    /**
+     * Returns the estimated number of bytes retained by all cached geometries
+     * that have not been reclaimed yet, including their shared svg contents.
+     * @return estimated retained bytes
+     */
+    public static long getRetainedBytes() {
+        // The references are read without the locks, so a load or simplification in progress does not block
+        long bytes = 0;
+        for (int i = 0; i < CACHE.length(); i++) {
+            Geometry geometry = get(CACHE, i);
+            if (null != geometry) { bytes += geometry.getRetainedBytes(); }
+        }
+        for (int i = 0; i < SIMPLIFIED.length(); i++) {
+            Geometry geometry = get(SIMPLIFIED, i);
+            if (null != geometry) { bytes += geometry.getRetainedBytes(); }
+        }
+        return bytes;
+    }
+
+    public static void clear() {
+        for (int i = 0; i < CACHE.length(); i++) {
+            synchronized (LOCKS[i]) { CACHE.set(i, null); }
+        }
+        synchronized (SIMPLIFIED_LOCK) {
+            for (int i = 0; i < SIMPLIFIED.length(); i++) { SIMPLIFIED.set(i, null); }
+            simplifier = null;
+        }
+        HITS.set(0);
+        MISSES.set(0);
+    }
+
+    private static Geometry get(final AtomicReferenceArray<SoftReference<Geometry>> REFERENCES, final int INDEX) {
+        SoftReference<Geometry> reference = REFERENCES.get(INDEX);
+        return null == reference ? null : reference.get();
+    }
+}
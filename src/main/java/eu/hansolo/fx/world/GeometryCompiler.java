@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+
+/**
+ * Build time tool that compiles the resolution properties into the binary
+ * geometry format that is loaded by World at runtime.
+ * Usage: GeometryCompiler &lt;input dir&gt; &lt;output dir&gt;
+ */
+public final class GeometryCompiler {
+    private static final String[] NAMES = { "hires", "lores" };
+
+
+    // ******************** Constructors **************************************
+    private GeometryCompiler() {}
+
+
+    // ******************** Methods *******************************************
+    public static void main(final String[] ARGS) throws IOException {
+        if (ARGS.length != 2) {
+            System.out.println("Usage: GeometryCompiler <input dir> <output dir>");
+            System.exit(1);
+        }
+        final File INPUT_DIR  = new File(ARGS[0]);
+        final File OUTPUT_DIR = new File(ARGS[1]);
+        if (!OUTPUT_DIR.isDirectory() && !OUTPUT_DIR.mkdirs()) { throw new IOException("Cannot create " + OUTPUT_DIR); }
+
+        for (String name : NAMES) {
+            File       inputFile  = new File(INPUT_DIR, name + ".properties");
+            File       outputFile = new File(OUTPUT_DIR, name + ".geo");
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(inputFile)) { properties.load(in); }
+
+            Geometry geometry = Geometry.fromProperties(properties);
+            try (OutputStream out = new FileOutputStream(outputFile)) { GeometryFormat.write(geometry, out); }
+
+            System.out.println(inputFile.getName() + " (" + inputFile.length() + " bytes) -> " + outputFile.getName() + " (" + outputFile.length() + " bytes, " + geometry.getPointCount() + " points)");
+        }
+    }
+}
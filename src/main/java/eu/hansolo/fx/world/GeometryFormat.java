@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+
+/**
+ * Binary geometry file format.
+ *
+ * <pre>
+ * int    magic ("WGEO")
+ * short  version
+ * int    quantization (coordinate = quantized value / quantization)
+ * short  number of countries
+ * per country : utf country name, varint number of paths
+ * per path    : varint number of rings
+ * per ring    : varint number of points, zigzag varint x/y of the first point,
+ *               zigzag varint x/y deltas to the previous point for all other points
+ * </pre>
+ */
+public final class GeometryFormat {
+    private static final int   MAGIC        = 0x5747454F;
+    private static final short VERSION      = 1;
+    private static final int   QUANTIZATION = 1000;
+
+
+    // ******************** Constructors **************************************
+    private GeometryFormat() {}
+
+
+    // ******************** Methods *******************************************
+    public static void write(final Geometry GEOMETRY, final OutputStream OUTPUT_STREAM) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(OUTPUT_STREAM));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(QUANTIZATION);
+        out.writeShort(GEOMETRY.getCountries().size());
+        for (CountryGeometry countryGeometry : GEOMETRY.getCountryGeometries()) {
+            out.writeUTF(countryGeometry.getCountry().name());
+            writeVarInt(out, countryGeometry.getPathCount());
+            for (int p = 0; p < countryGeometry.getPathCount(); p++) {
+                float[][] rings = countryGeometry.getRings(p);
+                writeVarInt(out, rings.length);
+                for (float[] ring : rings) {
+                    writeVarInt(out, ring.length / 2);
+                    int lastX = 0;
+                    int lastY = 0;
+                    for (int i = 0; i < ring.length; i += 2) {
+                        int x = (int) Math.round(ring[i] * (double) QUANTIZATION);
+                        int y = (int) Math.round(ring[i + 1] * (double) QUANTIZATION);
+                        writeVarInt(out, zigZag(x - lastX));
+                        writeVarInt(out, zigZag(y - lastY));
+                        lastX = x;
+                        lastY = y;
+                    }
+                }
+            }
+        }
+        out.flush();
+    }
+
+    public static Geometry read(final InputStream INPUT_STREAM) throws IOException {
+        final Decoder DECODER = new Decoder(readFully(INPUT_STREAM));
+        if (DECODER.readInt() != MAGIC) { throw new IOException("Not a geometry file"); }
+        int version = DECODER.readShort();
+        if (version != VERSION) { throw new IOException("Unsupported geometry file version " + version); }
+        final float                   SCALE     = DECODER.readInt();
+        final int                     COUNT     = DECODER.readShort();
+        Map<Country, CountryGeometry> countries = new EnumMap<>(Country.class);
+        for (int c = 0; c < COUNT; c++) {
+            Country     country = Country.valueOf(DECODER.readUTF());
+            float[][][] paths   = new float[DECODER.readVarInt()][][];
+            for (int p = 0; p < paths.length; p++) {
+                float[][] rings = new float[DECODER.readVarInt()][];
+                for (int r = 0; r < rings.length; r++) { rings[r] = DECODER.readRing(SCALE); }
+                paths[p] = rings;
+            }
+            countries.put(country, new CountryGeometry(country, paths));
+        }
+        return new Geometry(countries);
+    }
+
+    private static int zigZag(final int VALUE) { return (VALUE << 1) ^ (VALUE >> 31); }
+
+    private static void writeVarInt(final DataOutputStream OUT, final int VALUE) throws IOException {
+        int value = VALUE;
+        while ((value & ~0x7F) != 0) {
+            OUT.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        OUT.writeByte(value);
+    }
+
+    private static byte[] readFully(final InputStream INPUT_STREAM) throws IOException {
+        ByteArrayOutputStream out    = new ByteArrayOutputStream(1 << 16);
+        byte[]                buffer = new byte[1 << 16];
+        int                   read;
+        while ((read = INPUT_STREAM.read(buffer)) != -1) { out.write(buffer, 0, read); }
+        return out.toByteArray();
+    }
+
+
+    // ******************** Inner Classes *************************************
+    // Decodes from a plain byte array which avoids a stream call per byte
+    private static class Decoder {
+        private final byte[] BYTES;
+        private       int    position;
+
+
+        // ******************** Constructors **********************************
+        Decoder(final byte[] BYTES) {
+            this.BYTES    = BYTES;
+            this.position = 0;
+        }
+
+
+        // ******************** Methods ***************************************
+        int readInt() { return readShort() << 16 | readShort(); }
+
+        int readShort() { return (BYTES[position++] & 0xFF) << 8 | (BYTES[position++] & 0xFF); }
+
+        int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b      = BYTES[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        // Counterpart of DataOutputStream.writeUTF() for the ascii country names
+        String readUTF() {
+            int    length = readShort();
+            String text   = new String(BYTES, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return text;
+        }
+
+        // Decodes the zigzag varint deltas of one ring in a single tight loop
+        float[] readRing(final float SCALE) {
+            float[] ring  = new float[readVarInt() * 2];
+            int     pos   = position;
+            int     x     = 0;
+            int     y     = 0;
+            for (int i = 0; i < ring.length; i++) {
+                int value = 0;
+                int shift = 0;
+                int b;
+                do {
+                    b      = BYTES[pos++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                value = (value >>> 1) ^ -(value & 1);
+                if ((i & 1) == 0) {
+                    x      += value;
+                    ring[i] = x / SCALE;
+                } else {
+                    y      += value;
+                    ring[i] = y / SCALE;
+                }
+            }
+            position = pos;
+            return ring;
+        }
+    }
+}
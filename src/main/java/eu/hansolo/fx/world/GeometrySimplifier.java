@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Simplifies the outlines of a Geometry with the Douglas-Peucker algorithm
+ * without opening gaps between neighbouring countries. In the source data the
+ * borders of neighbours are digitized separately and differ by a few
+ * thousandths of a map unit, so their vertices are snapped together first.
+ * Every ring is then split into arcs at the junctions where the neighbours
+ * of a vertex change. An arc is shared by the rings on both sides of a border
+ * and is simplified only once. The Douglas-Peucker importance of every vertex
+ * is computed in the constructor, simplify() just filters the vertices and
+ * works for any tolerance in linear time.
+ * Immutable and thread safe.
+ */
+public final class GeometrySimplifier {
+    static final         double                  SNAP_DISTANCE = 0.05;
+    private static final double                  INFINITE      = Double.POSITIVE_INFINITY;
+    private        final Geometry                GEOMETRY;
+    private        final float[]                 XS;
+    private        final float[]                 YS;
+    private        final int[][]                 ARCS;
+    private        final double[][]              IMPORTANCES;
+    // Rings per path per country as arc references, ~index for a reversed arc, null for rings that are kept unchanged
+    private        final Map<Country, int[][][]> RINGS;
+
+
+    // ******************** Constructors **************************************
+    public GeometrySimplifier(final Geometry GEOMETRY) {
+        this.GEOMETRY = GEOMETRY;
+
+        // Snap the vertices of all rings onto each other
+        final Snapper                 SNAPPER  = new Snapper();
+        final Map<Country, int[][][]> VERTICES = new EnumMap<>(Country.class);
+        for (CountryGeometry countryGeometry : GEOMETRY.getCountryGeometries()) {
+            int[][][] paths = new int[countryGeometry.getPathCount()][][];
+            for (int p = 0; p < paths.length; p++) {
+                float[][] rings = countryGeometry.getRings(p);
+                paths[p] = new int[rings.length][];
+                for (int r = 0; r < rings.length; r++) { paths[p][r] = SNAPPER.snap(rings[r]); }
+            }
+            VERTICES.put(countryGeometry.getCountry(), paths);
+        }
+        XS = Arrays.copyOf(SNAPPER.xs, SNAPPER.size);
+        YS = Arrays.copyOf(SNAPPER.ys, SNAPPER.size);
+
+        // A vertex is a junction if it has different neighbours in different rings
+        final int[]     PREVIOUS = new int[SNAPPER.size];
+        final int[]     NEXT     = new int[SNAPPER.size];
+        final boolean[] JUNCTION = new boolean[SNAPPER.size];
+        Arrays.fill(PREVIOUS, -1);
+        for (int[][][] paths : VERTICES.values()) {
+            for (int[][] rings : paths) {
+                for (int[] ring : rings) {
+                    if (null == ring) { continue; }
+                    for (int i = 0; i < ring.length; i++) {
+                        int vertex   = ring[i];
+                        int previous = ring[(i + ring.length - 1) % ring.length];
+                        int next     = ring[(i + 1) % ring.length];
+                        if (-1 == PREVIOUS[vertex]) {
+                            PREVIOUS[vertex] = previous;
+                            NEXT[vertex]     = next;
+                        } else if (!(PREVIOUS[vertex] == previous && NEXT[vertex] == next) && !(PREVIOUS[vertex] == next && NEXT[vertex] == previous)) {
+                            JUNCTION[vertex] = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Split the rings into arcs between junctions, equal arcs are stored once
+        final Map<ArcKey, Integer> ARC_INDICES = new HashMap<>();
+        final List<int[]>          ARC_LIST    = new ArrayList<>();
+        RINGS = new EnumMap<>(Country.class);
+        VERTICES.forEach((country, paths) -> {
+            int[][][] arcPaths = new int[paths.length][][];
+            for (int p = 0; p < paths.length; p++) {
+                arcPaths[p] = new int[paths[p].length][];
+                for (int r = 0; r < paths[p].length; r++) {
+                    if (null != paths[p][r]) { arcPaths[p][r] = splitIntoArcs(paths[p][r], JUNCTION, ARC_INDICES, ARC_LIST); }
+                }
+            }
+            RINGS.put(country, arcPaths);
+        });
+        ARCS        = ARC_LIST.toArray(new int[0][]);
+        IMPORTANCES = new double[ARCS.length][];
+        for (int i = 0; i < ARCS.length; i++) { IMPORTANCES[i] = computeImportances(ARCS[i]); }
+    }
+
+
+    // ******************** Methods *******************************************
+    public Geometry getGeometry() { return GEOMETRY; }
+
+    /**
+     * Returns a new Geometry in which no vertex of the original outlines is
+     * further away from the simplified outlines than the given tolerance.
+     * Rings that collapse are removed, a country that would lose all of its
+     * rings keeps its original outline so that no country disappears. Rings
+     * that are smaller than the snap distance are always kept unchanged.
+     * @param TOLERANCE max deviation in map units, e.g. half the size of a pixel
+     * @return the simplified geometry
+     */
+    public Geometry simplify(final double TOLERANCE) {
+        final Map<Country, CountryGeometry> COUNTRIES = new EnumMap<>(Country.class);
+        RINGS.forEach((country, arcPaths) -> {
+            CountryGeometry original = GEOMETRY.get(country);
+            float[][][]     paths    = simplify(original, arcPaths, TOLERANCE);
+            COUNTRIES.put(country, 0 == paths.length ? original : new CountryGeometry(country, paths));
+        });
+        return new Geometry(COUNTRIES);
+    }
+
+    /**
+     * @return the number of distinct vertices after snapping
+     */
+    public int getVertexCount() { return XS.length; }
+
+    /**
+     * @return the number of distinct arcs, every shared border is one arc
+     */
+    public int getArcCount() { return ARCS.length; }
+
+    private float[][][] simplify(final CountryGeometry ORIGINAL, final int[][][] ARC_PATHS, final double TOLERANCE) {
+        List<float[][]> paths = new ArrayList<>(ARC_PATHS.length);
+        for (int p = 0; p < ARC_PATHS.length; p++) {
+            List<float[]> rings = new ArrayList<>(ARC_PATHS[p].length);
+            for (int r = 0; r < ARC_PATHS[p].length; r++) {
+                float[] ring = null == ARC_PATHS[p][r] ? ORIGINAL.getRings(p)[r] : simplifyRing(ARC_PATHS[p][r], TOLERANCE);
+                if (ring.length >= 6) { rings.add(ring); }
+            }
+            if (!rings.isEmpty()) { paths.add(rings.toArray(new float[0][])); }
+        }
+        return paths.toArray(new float[0][][]);
+    }
+
+    private float[] simplifyRing(final int[] ARC_RING, final double TOLERANCE) {
+        int length = 0;
+        for (int ref : ARC_RING) { length += ARCS[ref < 0 ? ~ref : ref].length; }
+        float[] ring = new float[length * 2];
+        int     size = 0;
+        for (int ref : ARC_RING) {
+            final boolean  REVERSED   = ref < 0;
+            final int[]    ARC        = ARCS[REVERSED ? ~ref : ref];
+            final double[] IMPORTANCE = IMPORTANCES[REVERSED ? ~ref : ref];
+            final int      LAST       = ARC.length - 1;
+            // The last vertex of an arc is the first vertex of the next arc
+            for (int i = 0; i < LAST; i++) {
+                int index = REVERSED ? LAST - i : i;
+                if (IMPORTANCE[index] <= TOLERANCE) { continue; }
+                ring[size++] = XS[ARC[index]];
+                ring[size++] = YS[ARC[index]];
+            }
+        }
+        return Arrays.copyOf(ring, size);
+    }
+
+    // Rotates the ring to its first junction and stores its arcs, a ring without junction is one closed arc
+    private static int[] splitIntoArcs(final int[] RING, final boolean[] JUNCTION, final Map<ArcKey, Integer> ARC_INDICES, final List<int[]> ARC_LIST) {
+        final int LENGTH = RING.length;
+        int start = -1;
+        for (int i = 0; i < LENGTH && start < 0; i++) { if (JUNCTION[RING[i]]) { start = i; } }
+        if (start < 0) {
+            // Closed arcs start at their smallest vertex, shared closed arcs (e.g. enclaves) then look the same from both sides
+            int min = 0;
+            for (int i = 1; i < LENGTH; i++) { if (RING[i] < RING[min]) { min = i; } }
+            int[] arc = new int[LENGTH + 1];
+            for (int i = 0; i <= LENGTH; i++) { arc[i] = RING[(min + i) % LENGTH]; }
+            return new int[] { addArc(arc, ARC_INDICES, ARC_LIST) };
+        }
+        List<Integer> refs = new ArrayList<>();
+        int from = start;
+        for (int i = 1; i <= LENGTH; i++) {
+            int index = (start + i) % LENGTH;
+            if (!JUNCTION[RING[index]] && i < LENGTH) { continue; }
+            int   count = i - (from - start);
+            int[] arc   = new int[count + 1];
+            for (int j = 0; j <= count; j++) { arc[j] = RING[(from + j) % LENGTH]; }
+            refs.add(addArc(arc, ARC_INDICES, ARC_LIST));
+            from = start + i;
+        }
+        int[] result = new int[refs.size()];
+        for (int i = 0; i < result.length; i++) { result[i] = refs.get(i); }
+        return result;
+    }
+
+    // Stores the arc in its canonical direction and returns its reference
+    private static int addArc(final int[] ARC, final Map<ArcKey, Integer> ARC_INDICES, final List<int[]> ARC_LIST) {
+        int[] reversed = new int[ARC.length];
+        for (int i = 0; i < ARC.length; i++) { reversed[i] = ARC[ARC.length - 1 - i]; }
+        boolean reverse = compare(reversed, ARC) < 0;
+        int[]   arc     = reverse ? reversed : ARC;
+        Integer index   = ARC_INDICES.get(new ArcKey(arc));
+        if (null == index) {
+            index = ARC_LIST.size();
+            ARC_LIST.add(arc);
+            ARC_INDICES.put(new ArcKey(arc), index);
+        }
+        return reverse ? ~index : index;
+    }
+
+    private static int compare(final int[] A, final int[] B) {
+        for (int i = 0; i < A.length; i++) {
+            if (A[i] != B[i]) { return Integer.compare(A[i], B[i]); }
+        }
+        return 0;
+    }
+
+    /**
+     * Douglas-Peucker without a tolerance. Every vertex gets the distance at
+     * which it splits its segment, limited by the importance of the vertex that
+     * created the segment. Keeping all vertices with an importance above a
+     * tolerance gives the same result as Douglas-Peucker with that tolerance.
+     */
+    private double[] computeImportances(final int[] ARC) {
+        final int      LAST       = ARC.length - 1;
+        final double[] IMPORTANCE = new double[ARC.length];
+        IMPORTANCE[0]    = INFINITE;
+        IMPORTANCE[LAST] = INFINITE;
+        final Deque<double[]> SEGMENTS = new ArrayDeque<>();
+        if (ARC[0] == ARC[LAST]) {
+            // Closed arcs keep a triangle so that islands do not disappear
+            int first = findSplit(ARC, 0, LAST);
+            if (first < 0) { return IMPORTANCE; }
+            IMPORTANCE[first] = INFINITE;
+            int    left          = findSplit(ARC, 0, first);
+            int    right         = findSplit(ARC, first, LAST);
+            double leftDistance  = left < 0 ? -1 : distance(ARC, left, 0, first);
+            double rightDistance = right < 0 ? -1 : distance(ARC, right, first, LAST);
+            if (left >= 0)  { IMPORTANCE[left]  = leftDistance >= rightDistance ? INFINITE : leftDistance; }
+            if (right >= 0) { IMPORTANCE[right] = rightDistance > leftDistance ? INFINITE : rightDistance; }
+            if (left >= 0) {
+                SEGMENTS.push(new double[] { 0, left, IMPORTANCE[left] });
+                SEGMENTS.push(new double[] { left, first, IMPORTANCE[left] });
+            } else {
+                SEGMENTS.push(new double[] { 0, first, INFINITE });
+            }
+            if (right >= 0) {
+                SEGMENTS.push(new double[] { first, right, IMPORTANCE[right] });
+                SEGMENTS.push(new double[] { right, LAST, IMPORTANCE[right] });
+            } else {
+                SEGMENTS.push(new double[] { first, LAST, INFINITE });
+            }
+        } else {
+            SEGMENTS.push(new double[] { 0, LAST, INFINITE });
+        }
+        while (!SEGMENTS.isEmpty()) {
+            double[] segment = SEGMENTS.pop();
+            int      from    = (int) segment[0];
+            int      to      = (int) segment[1];
+            int      split   = findSplit(ARC, from, to);
+            if (split < 0) { continue; }
+            double importance = Math.min(distance(ARC, split, from, to), segment[2]);
+            IMPORTANCE[split] = importance;
+            SEGMENTS.push(new double[] { from, split, importance });
+            SEGMENTS.push(new double[] { split, to, importance });
+        }
+        return IMPORTANCE;
+    }
+
+    // Returns the vertex between FROM and TO that is furthest away from the segment or -1 if there is none
+    private int findSplit(final int[] ARC, final int FROM, final int TO) {
+        int    split       = -1;
+        double maxDistance = -1;
+        for (int i = FROM + 1; i < TO; i++) {
+            double distance = distance(ARC, i, FROM, TO);
+            if (distance > maxDistance) {
+                maxDistance = distance;
+                split       = i;
+            }
+        }
+        return split;
+    }
+
+    // Distance of the vertex at INDEX to the segment between the vertices at FROM and TO
+    private double distance(final int[] ARC, final int INDEX, final int FROM, final int TO) {
+        final double X              = XS[ARC[INDEX]];
+        final double Y              = YS[ARC[INDEX]];
+        final double X1             = XS[ARC[FROM]];
+        final double Y1             = YS[ARC[FROM]];
+        final double DX             = XS[ARC[TO]] - X1;
+        final double DY             = YS[ARC[TO]] - Y1;
+        final double LENGTH_SQUARED = DX * DX + DY * DY;
+        double t = 0 == LENGTH_SQUARED ? 0 : Math.max(0, Math.min(1, ((X - X1) * DX + (Y - Y1) * DY) / LENGTH_SQUARED));
+        return Math.hypot(X - (X1 + t * DX), Y - (Y1 + t * DY));
+    }
+
+
+    // ******************** Inner Classes *************************************
+    // Merges vertices that are closer than SNAP_DISTANCE, backed by a grid of SNAP_DISTANCE sized cells
+    private static class Snapper {
+        private final Map<Long, int[]> CELLS = new HashMap<>();
+        private       float[]          xs    = new float[1024];
+        private       float[]          ys    = new float[1024];
+        private       int              size;
+
+
+        // ******************** Methods ***************************************
+        // Returns the vertex ids of the ring without the closing vertex and without consecutive duplicates, null if less than 3 remain
+        int[] snap(final float[] RING) {
+            int[] ids   = new int[RING.length / 2];
+            int   count = 0;
+            for (int i = 0; i < RING.length; i += 2) {
+                int id = getVertex(RING[i], RING[i + 1]);
+                if (count > 0 && ids[count - 1] == id) { continue; }
+                ids[count++] = id;
+            }
+            while (count > 1 && ids[count - 1] == ids[0]) { count--; }
+            return count < 3 ? null : Arrays.copyOf(ids, count);
+        }
+
+        private int getVertex(final float X, final float Y) {
+            final int CELL_X  = (int) Math.floor(X / SNAP_DISTANCE);
+            final int CELL_Y  = (int) Math.floor(Y / SNAP_DISTANCE);
+            int       nearest = -1;
+            double    minimum = SNAP_DISTANCE;
+            for (int cy = CELL_Y - 1; cy <= CELL_Y + 1; cy++) {
+                for (int cx = CELL_X - 1; cx <= CELL_X + 1; cx++) {
+                    int[] cell = CELLS.get(createKey(cx, cy));
+                    if (null == cell) { continue; }
+                    for (int i = 1; i <= cell[0]; i++) {
+                        double distance = Math.hypot(xs[cell[i]] - X, ys[cell[i]] - Y);
+                        if (distance <= minimum) {
+                            minimum = distance;
+                            nearest = cell[i];
+                        }
+                    }
+                }
+            }
+            if (nearest >= 0) { return nearest; }
+
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            xs[size] = X;
+            ys[size] = Y;
+            // The first element of a cell holds the number of vertices in it
+            final long KEY  = createKey(CELL_X, CELL_Y);
+            int[]      cell = CELLS.get(KEY);
+            if (null == cell) {
+                cell = new int[4];
+            } else if (cell[0] == cell.length - 1) {
+                cell = Arrays.copyOf(cell, cell.length * 2);
+            }
+            cell[++cell[0]] = size;
+            CELLS.put(KEY, cell);
+            return size++;
+        }
+
+        private static long createKey(final int X, final int Y) { return (long) X << 32 | (Y & 0xFFFFFFFFL); }
+    }
+
+    private static class ArcKey {
+        private final int[] VERTICES;
+        private final int   HASH;
+
+
+        // ******************** Constructors **********************************
+        ArcKey(final int[] VERTICES) {
+            this.VERTICES = VERTICES;
+            this.HASH     = Arrays.hashCode(VERTICES);
+        }
+
+
+        // ******************** Methods ***************************************
+        @Override public boolean equals(final Object OBJECT) {
+            return OBJECT instanceof ArcKey && Arrays.equals(VERTICES, ((ArcKey) OBJECT).VERTICES);
+        }
+
+        @Override public int hashCode() { return HASH; }
+    }
+}
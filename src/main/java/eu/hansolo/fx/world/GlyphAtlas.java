@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import org.kordamp.ikonli.Ikon;
+import org.kordamp.ikonli.javafx.FontIcon;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Renders every combination of icon, size and color that is used by the
+ * locations once and packs the results into one image. Drawing from one
+ * image allows the canvas to batch the draw calls of all locations.
+ * Must only be used on the FX application thread.
+ */
+class GlyphAtlas {
+    private static final int                  WIDTH   = 1024;
+    private static final int                  PADDING = 1;
+    private        final double               SCALE;
+    private        final Map<String, Integer> SPRITES;
+    private              WritableImage        image;
+    private              int[]                bounds;
+    private              int                  spriteCount;
+    private              int                  rowX;
+    private              int                  rowY;
+    private              int                  rowHeight;
+
+
+    // ******************** Constructors **************************************
+    /**
+     * @param SCALE number of atlas pixels per map unit, e.g. the maximum pixel
+     *              scale of the canvas so that the icons stay sharp when zoomed
+     */
+    GlyphAtlas(final double SCALE) {
+        this.SCALE   = SCALE;
+        this.SPRITES = new HashMap<>();
+        this.image   = new WritableImage(WIDTH, 256);
+        this.bounds  = new int[64];
+    }
+
+
+    // ******************** Methods *******************************************
+    Image getImage() { return image; }
+
+    double getScale() { return SCALE; }
+
+    int getSpriteCount() { return spriteCount; }
+
+    /**
+     * Returns the index of the sprite for the given icon, size and color,
+     * the sprite will be rendered into the atlas on first use.
+     */
+    int getSprite(final Ikon ICON_CODE, final int SIZE, final Color COLOR) {
+        final String KEY    = ICON_CODE.getDescription() + '|' + SIZE + '|' + COLOR;
+        Integer      sprite = SPRITES.get(KEY);
+        if (null == sprite) {
+            sprite = addSprite(ICON_CODE, SIZE, COLOR);
+            SPRITES.put(KEY, sprite);
+        }
+        return sprite;
+    }
+
+    int getX(final int SPRITE) { return bounds[SPRITE * 4]; }
+    int getY(final int SPRITE) { return bounds[SPRITE * 4 + 1]; }
+    int getWidth(final int SPRITE) { return bounds[SPRITE * 4 + 2]; }
+    int getHeight(final int SPRITE) { return bounds[SPRITE * 4 + 3]; }
+
+    private int addSprite(final Ikon ICON_CODE, final int SIZE, final Color COLOR) {
+        FontIcon icon = new FontIcon(ICON_CODE);
+        icon.setIconSize(SIZE);
+        icon.setIconColor(COLOR);
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(new Scale(SCALE, SCALE));
+        WritableImage glyph = icon.snapshot(parameters, null);
+
+        int width  = Math.min((int) glyph.getWidth(), WIDTH - 2 * PADDING);
+        int height = (int) glyph.getHeight();
+        if (rowX + width + PADDING > WIDTH) {
+            rowX      = 0;
+            rowY     += rowHeight;
+            rowHeight = 0;
+        }
+        int x = rowX + PADDING;
+        int y = rowY + PADDING;
+        if (y + height + PADDING > image.getHeight()) { grow(y + height + PADDING); }
+        image.getPixelWriter().setPixels(x, y, width, height, glyph.getPixelReader(), 0, 0);
+        rowX      = x + width;
+        rowHeight = Math.max(rowHeight, height + PADDING);
+
+        if (spriteCount * 4 == bounds.length) { bounds = Arrays.copyOf(bounds, bounds.length * 2); }
+        bounds[spriteCount * 4]     = x;
+        bounds[spriteCount * 4 + 1] = y;
+        bounds[spriteCount * 4 + 2] = width;
+        bounds[spriteCount * 4 + 3] = height;
+        return spriteCount++;
+    }
+
+    private void grow(final int MIN_HEIGHT) {
+        int           height = (int) image.getHeight();
+        while (height < MIN_HEIGHT) { height *= 2; }
+        WritableImage grown  = new WritableImage(WIDTH, height);
+        grown.getPixelWriter().setPixels(0, 0, WIDTH, (int) image.getHeight(), image.getPixelReader(), 0, 0);
+        image = grown;
+    }
+}
@@ -27,7 +27,6 @@ import org.kordamp.ikonli.Ikon;
  * Created by hansolo on 20.11.16.
  */
 public class Location {
-    private static final double                   EARTH_RADIUS      = 6_371_000; // [m]
     private static final int                      DEFAULT_ICON_SIZE = 12;
     private              String                   name;
     private              double                   latitude;
@@ -151,17 +150,7 @@ public class Location {
         return calcDistanceInMeter(P1, P2) / 1000.0;
     }
     public double calcDistanceInMeter(final double LAT_1, final double LON_1, final double LAT_2, final double LON_2) {
-        final double LAT_1_RADIANS     = Math.toRadians(LAT_1);
-        final double LAT_2_RADIANS     = Math.toRadians(LAT_2);
-        final double DELTA_LAT_RADIANS = Math.toRadians(LAT_2-LAT_1);
-        final double DELTA_LON_RADIANS = Math.toRadians(LON_2-LON_1);
-
-        final double A = Math.sin(DELTA_LAT_RADIANS * 0.5) * Math.sin(DELTA_LAT_RADIANS * 0.5) + Math.cos(LAT_1_RADIANS) * Math.cos(LAT_2_RADIANS) * Math.sin(DELTA_LON_RADIANS * 0.5) * Math.sin(DELTA_LON_RADIANS * 0.5);
-        final double C = 2 * Math.atan2(Math.sqrt(A), Math.sqrt(1-A));
-
-        final double DISTANCE = EARTH_RADIUS * C;
-
-        return DISTANCE;
+        return GeoMath.distance(LAT_1, LON_1, LAT_2, LON_2);
     }
 
     private int clamp(final int MIN_VALUE, final int MAX_VALUE, final int VALUE) {
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Collects location changes that World applies as one diff, see
+ * World.batch(). Only the last change per location counts, adding a location
+ * that is already on the map updates it (e.g. after it was moved).
+ */
+public class LocationBatch {
+    private final Map<Location, Boolean> CHANGES;
+    private       boolean                cleared;
+
+
+    // ******************** Constructors **************************************
+    LocationBatch() {
+        CHANGES = new LinkedHashMap<>();
+    }
+
+
+    // ******************** Methods *******************************************
+    public LocationBatch add(final Location... LOCATIONS) {
+        for (Location location : LOCATIONS) { CHANGES.put(location, Boolean.TRUE); }
+        return this;
+    }
+    public LocationBatch addAll(final Collection<Location> LOCATIONS) {
+        for (Location location : LOCATIONS) { CHANGES.put(location, Boolean.TRUE); }
+        return this;
+    }
+
+    public LocationBatch remove(final Location... LOCATIONS) {
+        for (Location location : LOCATIONS) { CHANGES.put(location, Boolean.FALSE); }
+        return this;
+    }
+    public LocationBatch removeAll(final Collection<Location> LOCATIONS) {
+        for (Location location : LOCATIONS) { CHANGES.put(location, Boolean.FALSE); }
+        return this;
+    }
+
+    /**
+     * Removes all locations that are on the map before the batch is applied,
+     * changes that have been collected so far are discarded.
+     */
+    public LocationBatch clear() {
+        CHANGES.clear();
+        cleared = true;
+        return this;
+    }
+
+    boolean isCleared() { return cleared; }
+
+    Map<Location, Boolean> getChanges() { return CHANGES; }
+
+
+    // ******************** Inner Classes *************************************
+    public static class Result {
+        private final int  added;
+        private final int  updated;
+        private final int  removed;
+        private final long durationNanos;
+
+
+        // ******************** Constructors **********************************
+        Result(final int ADDED, final int UPDATED, final int REMOVED, final long DURATION_NANOS) {
+            added         = ADDED;
+            updated       = UPDATED;
+            removed       = REMOVED;
+            durationNanos = DURATION_NANOS;
+        }
+
+
+        // ******************** Methods ***************************************
+        public int getAdded() { return added; }
+
+        public int getUpdated() { return updated; }
+
+        public int getRemoved() { return removed; }
+
+        /**
+         * Time it took to apply the batch on the FX application thread,
+         * including the update of the scene graph.
+         */
+        public long getDurationNanos() { return durationNanos; }
+        public double getDurationMillis() { return durationNanos / 1_000_000.0; }
+
+        @Override public String toString() {
+            return new StringBuilder().append("added: ").append(added)
+                                      .append(", updated: ").append(updated)
+                                      .append(", removed: ").append(removed)
+                                      .append(", duration: ").append(String.format("%.3f", getDurationMillis())).append(" ms")
+                                      .toString();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Groups locations that are close to each other on screen into clusters.
+ * The clusters are precomputed for every zoom level, level n is meant for a
+ * pixel scale between 2^n and 2^(n+1). Every level is built from the clusters
+ * of the next finer level, so the levels form a hierarchy and changing the
+ * zoom only selects another level.
+ * Clusters of one level are at least RADIUS / 2^level map units apart, which
+ * keeps the number of visible clusters bounded no matter how many locations
+ * there are.
+ * Immutable after construction, has no dependency on the FX toolkit.
+ */
+class LocationClusterer {
+    static final         int        MAX_LEVEL        = 8;
+    private static final int        MAX_GRID_COLUMNS = 1024;
+    private static final int        QUERY_COLUMNS    = 256;
+    private static final int        NONE             = -1;
+    private        final double     MAP_WIDTH;
+    private        final double     MAP_HEIGHT;
+    private        final Location[] LOCATIONS;
+    private        final Level[]    LEVELS;
+
+
+    // ******************** Constructors **************************************
+    /**
+     * @param LOCATIONS the locations to cluster
+     * @param XS x coordinates of the locations in map coordinates
+     * @param YS y coordinates of the locations in map coordinates
+     * @param RADIUS cluster radius in pixels on screen
+     */
+    LocationClusterer(final Location[] LOCATIONS, final double[] XS, final double[] YS, final double MAP_WIDTH, final double MAP_HEIGHT, final double RADIUS) {
+        this.MAP_WIDTH  = MAP_WIDTH;
+        this.MAP_HEIGHT = MAP_HEIGHT;
+        this.LOCATIONS  = LOCATIONS;
+        this.LEVELS     = new Level[MAX_LEVEL + 1];
+
+        final int SIZE   = LOCATIONS.length;
+        Level     finer  = new Level(SIZE);
+        for (int i = 0; i < SIZE; i++) { finer.add(XS[i], YS[i], XS[i], YS[i], XS[i], YS[i], 1, i); }
+        for (int level = MAX_LEVEL; level >= 0; level--) {
+            finer = cluster(finer, RADIUS / (1 << level));
+            finer.createQueryGrid();
+            LEVELS[level] = finer;
+        }
+    }
+
+
+    // ******************** Methods *******************************************
+    int size() { return LOCATIONS.length; }
+
+    /**
+     * @param PIXEL_SCALE number of screen pixels per map unit
+     * @return the level of clusters to show at the given pixel scale
+     */
+    static int getLevel(final double PIXEL_SCALE) {
+        if (PIXEL_SCALE < 2) return 0;
+        return Math.min(MAX_LEVEL, (int) Math.floor(Math.log(PIXEL_SCALE) / Math.log(2)));
+    }
+
+    /**
+     * Returns the clusters of the given level whose center lies inside the
+     * given rectangle in map coordinates.
+     */
+    List<Cluster> find(final int LEVEL, final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y) {
+        final Level         CLUSTERS = LEVELS[LEVEL];
+        final List<Cluster> RESULT   = new ArrayList<>();
+        if (MAX_X < MIN_X || MAX_Y < MIN_Y) { return RESULT; }
+        int minColumn = CLUSTERS.column(MIN_X);
+        int maxColumn = CLUSTERS.column(MAX_X);
+        int maxRow    = CLUSTERS.row(MAX_Y);
+        for (int row = CLUSTERS.row(MIN_Y); row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                int cell = row * CLUSTERS.columns + column;
+                for (int i = CLUSTERS.cellStarts[cell]; i < CLUSTERS.cellStarts[cell + 1]; i++) {
+                    int    cluster = CLUSTERS.cellItems[i];
+                    double x       = CLUSTERS.xs[cluster];
+                    double y       = CLUSTERS.ys[cluster];
+                    if (x < MIN_X || x > MAX_X || y < MIN_Y || y > MAX_Y) { continue; }
+                    int location = CLUSTERS.locations[cluster];
+                    RESULT.add(new Cluster(x, y, CLUSTERS.counts[cluster], NONE == location ? null : LOCATIONS[location],
+                                           CLUSTERS.minXs[cluster], CLUSTERS.minYs[cluster], CLUSTERS.maxXs[cluster], CLUSTERS.maxYs[cluster]));
+                }
+            }
+        }
+        return RESULT;
+    }
+
+    // Greedily merges every cluster of the finer level with its unmerged neighbors within the radius
+    private Level cluster(final Level FINER, final double RADIUS) {
+        final int      SIZE      = FINER.size;
+        final double   CELL_SIZE = Math.max(RADIUS, Math.max(MAP_WIDTH, MAP_HEIGHT) / MAX_GRID_COLUMNS);
+        final int      COLUMNS   = (int) Math.ceil(MAP_WIDTH / CELL_SIZE);
+        final int      ROWS      = (int) Math.ceil(MAP_HEIGHT / CELL_SIZE);
+        final int[]    CELLS     = new int[SIZE];
+        final int[]    STARTS    = new int[COLUMNS * ROWS + 1];
+        final int[]    ITEMS     = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            CELLS[i] = cell(FINER.xs[i], FINER.ys[i], CELL_SIZE, COLUMNS, ROWS);
+            STARTS[CELLS[i] + 1]++;
+        }
+        for (int cell = 0; cell < COLUMNS * ROWS; cell++) { STARTS[cell + 1] += STARTS[cell]; }
+        final int[] FILL = STARTS.clone();
+        for (int i = 0; i < SIZE; i++) { ITEMS[FILL[CELLS[i]]++] = i; }
+
+        final double    RADIUS_SQUARED = RADIUS * RADIUS;
+        final boolean[] MERGED         = new boolean[SIZE];
+        final Level     COARSER        = new Level(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            if (MERGED[i]) { continue; }
+            MERGED[i] = true;
+            final double X     = FINER.xs[i];
+            final double Y     = FINER.ys[i];
+            int          count = FINER.counts[i];
+            double       sumX  = X * count;
+            double       sumY  = Y * count;
+            double       minX  = FINER.minXs[i];
+            double       minY  = FINER.minYs[i];
+            double       maxX  = FINER.maxXs[i];
+            double       maxY  = FINER.maxYs[i];
+            final int    ID    = COARSER.size;
+            FINER.parents[i]   = ID;
+
+            final int COLUMN = CELLS[i] % COLUMNS;
+            final int ROW    = CELLS[i] / COLUMNS;
+            for (int row = Math.max(0, ROW - 1); row <= Math.min(ROWS - 1, ROW + 1); row++) {
+                for (int column = Math.max(0, COLUMN - 1); column <= Math.min(COLUMNS - 1, COLUMN + 1); column++) {
+                    int cell = row * COLUMNS + column;
+                    for (int item = STARTS[cell]; item < STARTS[cell + 1]; item++) {
+                        int j = ITEMS[item];
+                        if (MERGED[j]) { continue; }
+                        double dx = FINER.xs[j] - X;
+                        double dy = FINER.ys[j] - Y;
+                        if (dx * dx + dy * dy > RADIUS_SQUARED) { continue; }
+                        MERGED[j]        = true;
+                        FINER.parents[j] = ID;
+                        count           += FINER.counts[j];
+                        sumX            += FINER.xs[j] * FINER.counts[j];
+                        sumY            += FINER.ys[j] * FINER.counts[j];
+                        minX             = Math.min(minX, FINER.minXs[j]);
+                        minY             = Math.min(minY, FINER.minYs[j]);
+                        maxX             = Math.max(maxX, FINER.maxXs[j]);
+                        maxY             = Math.max(maxY, FINER.maxYs[j]);
+                    }
+                }
+            }
+            COARSER.add(sumX / count, sumY / count, minX, minY, maxX, maxY, count, 1 == count ? FINER.locations[i] : NONE);
+        }
+        return COARSER;
+    }
+
+    private static int cell(final double X, final double Y, final double CELL_SIZE, final int COLUMNS, final int ROWS) {
+        int column = Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor(X / CELL_SIZE)));
+        int row    = Math.max(0, Math.min(ROWS - 1, (int) Math.floor(Y / CELL_SIZE)));
+        return row * COLUMNS + column;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    static class Cluster {
+        final double   X;
+        final double   Y;
+        final int      COUNT;
+        final Location LOCATION;
+        final double   MIN_X;
+        final double   MIN_Y;
+        final double   MAX_X;
+        final double   MAX_Y;
+
+
+        // ******************** Constructors **********************************
+        Cluster(final double X, final double Y, final int COUNT, final Location LOCATION, final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y) {
+            this.X        = X;
+            this.Y        = Y;
+            this.COUNT    = COUNT;
+            this.LOCATION = LOCATION;
+            this.MIN_X    = MIN_X;
+            this.MIN_Y    = MIN_Y;
+            this.MAX_X    = MAX_X;
+            this.MAX_Y    = MAX_Y;
+        }
+    }
+
+    // Clusters of one level in parallel arrays, parents point into the next coarser level
+    private class Level {
+        private int      size;
+        private double[] xs;
+        private double[] ys;
+        private double[] minXs;
+        private double[] minYs;
+        private double[] maxXs;
+        private double[] maxYs;
+        private int[]    counts;
+        private int[]    locations;
+        private int[]    parents;
+        private int      columns;
+        private int      rows;
+        private double   cellSize;
+        private int[]    cellStarts;
+        private int[]    cellItems;
+
+
+        // ******************** Constructors **********************************
+        Level(final int CAPACITY) {
+            xs        = new double[CAPACITY];
+            ys        = new double[CAPACITY];
+            minXs     = new double[CAPACITY];
+            minYs     = new double[CAPACITY];
+            maxXs     = new double[CAPACITY];
+            maxYs     = new double[CAPACITY];
+            counts    = new int[CAPACITY];
+            locations = new int[CAPACITY];
+            parents   = new int[CAPACITY];
+        }
+
+
+        // ******************** Methods ***************************************
+        void add(final double X, final double Y, final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y, final int COUNT, final int LOCATION) {
+            xs[size]        = X;
+            ys[size]        = Y;
+            minXs[size]     = MIN_X;
+            minYs[size]     = MIN_Y;
+            maxXs[size]     = MAX_X;
+            maxYs[size]     = MAX_Y;
+            counts[size]    = COUNT;
+            locations[size] = LOCATION;
+            parents[size]   = NONE;
+            size++;
+        }
+
+        // Trims the arrays to the number of clusters and sorts them into a grid for queries
+        void createQueryGrid() {
+            xs         = Arrays.copyOf(xs, size);
+            ys         = Arrays.copyOf(ys, size);
+            minXs      = Arrays.copyOf(minXs, size);
+            minYs      = Arrays.copyOf(minYs, size);
+            maxXs      = Arrays.copyOf(maxXs, size);
+            maxYs      = Arrays.copyOf(maxYs, size);
+            counts     = Arrays.copyOf(counts, size);
+            locations  = Arrays.copyOf(locations, size);
+            parents    = Arrays.copyOf(parents, size);
+            cellSize   = Math.max(MAP_WIDTH, MAP_HEIGHT) / QUERY_COLUMNS;
+            columns    = (int) Math.ceil(MAP_WIDTH / cellSize);
+            rows       = (int) Math.ceil(MAP_HEIGHT / cellSize);
+            cellStarts = new int[columns * rows + 1];
+            cellItems  = new int[size];
+            int[] cells = new int[size];
+            for (int i = 0; i < size; i++) {
+                cells[i] = cell(xs[i], ys[i], cellSize, columns, rows);
+                cellStarts[cells[i] + 1]++;
+            }
+            for (int cell = 0; cell < columns * rows; cell++) { cellStarts[cell + 1] += cellStarts[cell]; }
+            int[] fill = cellStarts.clone();
+            for (int i = 0; i < size; i++) { cellItems[fill[cells[i]]++] = i; }
+        }
+
+        int column(final double X) { return Math.max(0, Math.min(columns - 1, (int) Math.floor(X / cellSize))); }
+
+        int row(final double Y) { return Math.max(0, Math.min(rows - 1, (int) Math.floor(Y / cellSize))); }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Uniform grid over the map coordinate space. Every cell holds a doubly
+ * linked list of entries, so adding, moving and removing a location is O(1)
+ * and queries only visit the cells that overlap the query area.
+ * Positions outside of the map are stored in the nearest border cell.
+ * Not thread safe.
+ */
+class LocationIndex {
+    private static final int                    INITIAL_CAPACITY = 1024;
+    private static final int                    NONE             = -1;
+    private        final double                 CELL_SIZE;
+    private        final int                    COLUMNS;
+    private        final int                    ROWS;
+    private        final int[]                  CELL_HEADS;
+    private        final Map<Location, Integer> ENTRIES;
+    private              Location[]             locations;
+    private              double[]               xs;
+    private              double[]               ys;
+    private              int[]                  cells;
+    private              int[]                  next;
+    private              int[]                  previous;
+    private              long[]                 stamps;
+    private              int                    capacity;
+    private              int                    freeHead;
+    private              int                    slotCount;
+    private              long                   stamp;
+    private              int                    maxIconSize;
+
+
+    // ******************** Constructors **************************************
+    LocationIndex(final double MAP_WIDTH, final double MAP_HEIGHT, final double CELL_SIZE) {
+        this.CELL_SIZE  = CELL_SIZE;
+        this.COLUMNS    = (int) Math.ceil(MAP_WIDTH / CELL_SIZE);
+        this.ROWS       = (int) Math.ceil(MAP_HEIGHT / CELL_SIZE);
+        this.CELL_HEADS = new int[COLUMNS * ROWS];
+        this.ENTRIES    = new HashMap<>();
+        this.freeHead   = NONE;
+        Arrays.fill(CELL_HEADS, NONE);
+        ensureCapacity(INITIAL_CAPACITY);
+    }
+
+
+    // ******************** Methods *******************************************
+    int size() { return ENTRIES.size(); }
+
+    boolean contains(final Location LOCATION) { return ENTRIES.containsKey(LOCATION); }
+
+    /**
+     * Adds the location at the given position in map coordinates, adding a
+     * location again moves it to the new position and on top of the others.
+     */
+    void add(final Location LOCATION, final double X, final double Y) {
+        Integer entry = ENTRIES.get(LOCATION);
+        int     slot;
+        if (null == entry) {
+            if (NONE == freeHead) {
+                if (slotCount == capacity) { ensureCapacity(capacity * 2); }
+                slot = slotCount++;
+            } else {
+                slot     = freeHead;
+                freeHead = next[slot];
+            }
+            ENTRIES.put(LOCATION, slot);
+            locations[slot] = LOCATION;
+        } else {
+            slot = entry;
+            unlink(slot);
+        }
+        xs[slot]     = X;
+        ys[slot]     = Y;
+        stamps[slot] = ++stamp;
+        maxIconSize  = Math.max(maxIconSize, LOCATION.getIconSize());
+        link(slot, cellOf(X, Y));
+    }
+
+    void remove(final Location LOCATION) {
+        Integer entry = ENTRIES.remove(LOCATION);
+        if (null == entry) { return; }
+        int slot = entry;
+        unlink(slot);
+        locations[slot] = null;
+        next[slot]      = freeHead;
+        freeHead        = slot;
+    }
+
+    void clear() {
+        Arrays.fill(CELL_HEADS, NONE);
+        Arrays.fill(locations, 0, slotCount, null);
+        ENTRIES.clear();
+        freeHead  = NONE;
+        slotCount = 0;
+    }
+
+    /**
+     * Returns all locations inside the given rectangle in map coordinates.
+     */
+    List<Location> find(final double MIN_X, final double MIN_Y, final double MAX_X, final double MAX_Y) {
+        List<Location> result = new ArrayList<>();
+        if (MAX_X < MIN_X || MAX_Y < MIN_Y) { return result; }
+        int minColumn = column(MIN_X);
+        int maxColumn = column(MAX_X);
+        int maxRow    = row(MAX_Y);
+        for (int row = row(MIN_Y); row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int slot = CELL_HEADS[row * COLUMNS + column]; slot != NONE; slot = next[slot]) {
+                    double x = xs[slot];
+                    double y = ys[slot];
+                    if (x >= MIN_X && x <= MAX_X && y >= MIN_Y && y <= MAX_Y) { result.add(locations[slot]); }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the K locations that are closest to the given position on the
+     * map, sorted by distance. Rings of cells around the position are searched
+     * until no cell of the next ring can contain a closer location.
+     */
+    List<Location> nearest(final double X, final double Y, final int K) {
+        if (K <= 0 || ENTRIES.isEmpty()) { return new ArrayList<>(); }
+        final int      COUNT     = Math.min(K, ENTRIES.size());
+        final int[]    BEST      = new int[COUNT];
+        final double[] DISTANCES = new double[COUNT];
+        int            found     = 0;
+        final int      COLUMN    = column(X);
+        final int      ROW       = row(Y);
+        final int      MAX_RING  = Math.max(COLUMNS, ROWS);
+        for (int ring = 0; ring <= MAX_RING; ring++) {
+            if (found == COUNT) {
+                // Distance from the position to the closest cell of this ring
+                double reach = (ring - 1) * CELL_SIZE + Math.min(Math.min(X - COLUMN * CELL_SIZE, (COLUMN + 1) * CELL_SIZE - X),
+                                                                   Math.min(Y - ROW * CELL_SIZE, (ROW + 1) * CELL_SIZE - Y));
+                if (reach > 0 && reach * reach > DISTANCES[COUNT - 1]) { break; }
+            }
+            for (int row = ROW - ring; row <= ROW + ring; row++) {
+                if (row < 0 || row >= ROWS) { continue; }
+                boolean edgeRow = row == ROW - ring || row == ROW + ring;
+                int     step    = edgeRow ? 1 : 2 * ring;
+                for (int column = COLUMN - ring; column <= COLUMN + ring; column += Math.max(1, step)) {
+                    if (column < 0 || column >= COLUMNS) { continue; }
+                    for (int slot = CELL_HEADS[row * COLUMNS + column]; slot != NONE; slot = next[slot]) {
+                        double dx       = xs[slot] - X;
+                        double dy       = ys[slot] - Y;
+                        double distance = dx * dx + dy * dy;
+                        if (found == COUNT && distance >= DISTANCES[COUNT - 1]) { continue; }
+                        // Insertion into the sorted candidates, K is small
+                        int i = found == COUNT ? COUNT - 1 : found++;
+                        while (i > 0 && DISTANCES[i - 1] > distance) {
+                            DISTANCES[i] = DISTANCES[i - 1];
+                            BEST[i]      = BEST[i - 1];
+                            i--;
+                        }
+                        DISTANCES[i] = distance;
+                        BEST[i]      = slot;
+                    }
+                }
+            }
+        }
+        List<Location> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) { result.add(locations[BEST[i]]); }
+        return result;
+    }
+
+    /**
+     * Returns the most recently added location whose icon covers the given
+     * position in map coordinates or null.
+     */
+    Location pick(final double X, final double Y) {
+        final double RADIUS    = maxIconSize * 0.5;
+        Location     result    = null;
+        long         topmost   = Long.MIN_VALUE;
+        int          minColumn = column(X - RADIUS);
+        int          maxColumn = column(X + RADIUS);
+        int          maxRow    = row(Y + RADIUS);
+        for (int row = row(Y - RADIUS); row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (int slot = CELL_HEADS[row * COLUMNS + column]; slot != NONE; slot = next[slot]) {
+                    double halfSize = locations[slot].getIconSize() * 0.5;
+                    if (stamps[slot] > topmost && Math.abs(xs[slot] - X) <= halfSize && Math.abs(ys[slot] - Y) <= halfSize) {
+                        result  = locations[slot];
+                        topmost = stamps[slot];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private int column(final double X) { return Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor(X / CELL_SIZE))); }
+
+    private int row(final double Y) { return Math.max(0, Math.min(ROWS - 1, (int) Math.floor(Y / CELL_SIZE))); }
+
+    private int cellOf(final double X, final double Y) { return row(Y) * COLUMNS + column(X); }
+
+    private void link(final int SLOT, final int CELL) {
+        int head       = CELL_HEADS[CELL];
+        cells[SLOT]    = CELL;
+        previous[SLOT] = NONE;
+        next[SLOT]     = head;
+        if (NONE != head) { previous[head] = SLOT; }
+        CELL_HEADS[CELL] = SLOT;
+    }
+
+    private void unlink(final int SLOT) {
+        int before = previous[SLOT];
+        int after  = next[SLOT];
+        if (NONE == before) {
+            CELL_HEADS[cells[SLOT]] = after;
+        } else {
+            next[before] = after;
+        }
+        if (NONE != after) { previous[after] = before; }
+    }
+
+    private void ensureCapacity(final int CAPACITY) {
+        locations = null == locations ? new Location[CAPACITY] : Arrays.copyOf(locations, CAPACITY);
+        xs        = null == xs ? new double[CAPACITY] : Arrays.copyOf(xs, CAPACITY);
+        ys        = null == ys ? new double[CAPACITY] : Arrays.copyOf(ys, CAPACITY);
+        cells     = null == cells ? new int[CAPACITY] : Arrays.copyOf(cells, CAPACITY);
+        next      = null == next ? new int[CAPACITY] : Arrays.copyOf(next, CAPACITY);
+        previous  = null == previous ? new int[CAPACITY] : Arrays.copyOf(previous, CAPACITY);
+        stamps    = null == stamps ? new long[CAPACITY] : Arrays.copyOf(stamps, CAPACITY);
+        capacity  = CAPACITY;
+    }
+}
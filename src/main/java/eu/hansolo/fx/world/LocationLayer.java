@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import org.kordamp.ikonli.Ikon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Draws a large number of locations into one Canvas that covers the map
+ * coordinate space. The positions are kept in primitive arrays and the icons
+ * are drawn from a GlyphAtlas, no node is created per location.
+ * The layer is mouse transparent, World picks the location under the mouse
+ * from its LocationIndex and only creates a node for the hovered location.
+ * Must only be used on the FX application thread.
+ */
+class LocationLayer extends Canvas {
+    private static final double                 MAX_CANVAS_SIZE  = 4096;
+    private static final int                    INITIAL_CAPACITY = 1024;
+    private        final double                 MAP_WIDTH;
+    private        final double                 MAP_HEIGHT;
+    private        final GlyphAtlas             ATLAS;
+    private        final Map<Location, Integer> INDICES;
+    private        final Scale                  SCALE;
+    private              Location[]             locations;
+    private              double[]               xs;
+    private              double[]               ys;
+    private              int[]                  sprites;
+    private              int                    size;
+    private              Ikon                   defaultIconCode;
+    private              Color                  defaultColor;
+    private              double                 pixelScale;
+    private              boolean                redrawPending;
+
+
+    // ******************** Constructors **************************************
+    LocationLayer(final double MAP_WIDTH, final double MAP_HEIGHT, final Ikon DEFAULT_ICON_CODE, final Color DEFAULT_COLOR) {
+        this.MAP_WIDTH       = MAP_WIDTH;
+        this.MAP_HEIGHT      = MAP_HEIGHT;
+        this.ATLAS           = new GlyphAtlas(MAX_CANVAS_SIZE / Math.max(MAP_WIDTH, MAP_HEIGHT));
+        this.INDICES         = new HashMap<>();
+        this.SCALE           = new Scale(1, 1, 0, 0);
+        this.locations       = new Location[INITIAL_CAPACITY];
+        this.xs              = new double[INITIAL_CAPACITY];
+        this.ys              = new double[INITIAL_CAPACITY];
+        this.sprites         = new int[INITIAL_CAPACITY];
+        this.defaultIconCode = DEFAULT_ICON_CODE;
+        this.defaultColor    = DEFAULT_COLOR;
+        this.pixelScale      = 0;
+        setMouseTransparent(true);
+        getTransforms().add(SCALE);
+        setPixelScale(1);
+    }
+
+
+    // ******************** Methods *******************************************
+    int size() { return size; }
+
+    boolean contains(final Location LOCATION) { return INDICES.containsKey(LOCATION); }
+
+    List<Location> getLocations() { return new ArrayList<>(Arrays.asList(locations).subList(0, size)); }
+
+    /**
+     * Adds the location at the given position in map coordinates, adding a
+     * location again just moves it to the new position.
+     */
+    void add(final Location LOCATION, final double X, final double Y) {
+        Integer index = INDICES.get(LOCATION);
+        if (null == index) {
+            if (size == locations.length) { ensureCapacity(size * 2); }
+            index = size++;
+            INDICES.put(LOCATION, index);
+            locations[index] = LOCATION;
+        }
+        xs[index]      = X;
+        ys[index]      = Y;
+        sprites[index] = -1;
+        scheduleRedraw();
+    }
+
+    void remove(final Location LOCATION) {
+        Integer index = INDICES.remove(LOCATION);
+        if (null == index) { return; }
+        // Move the last location into the gap to keep the arrays dense
+        int last = --size;
+        if (index != last) {
+            locations[index] = locations[last];
+            xs[index]        = xs[last];
+            ys[index]        = ys[last];
+            sprites[index]   = sprites[last];
+            INDICES.put(locations[index], index);
+        }
+        locations[last] = null;
+        scheduleRedraw();
+    }
+
+    void clear() {
+        Arrays.fill(locations, 0, size, null);
+        INDICES.clear();
+        size = 0;
+        scheduleRedraw();
+    }
+
+    void setDefaultIconCode(final Ikon ICON_CODE) {
+        defaultIconCode = ICON_CODE;
+        invalidateSprites();
+    }
+
+    void setDefaultColor(final Color COLOR) {
+        defaultColor = COLOR;
+        invalidateSprites();
+    }
+
+    /**
+     * Sets the number of canvas pixels per map unit. The size of the canvas is
+     * limited to MAX_CANVAS_SIZE pixels, beyond that the bitmap will be scaled.
+     * @param PIXEL_SCALE canvas pixels per map unit
+     */
+    void setPixelScale(final double PIXEL_SCALE) {
+        double scale = Math.max(1, Math.min(PIXEL_SCALE, MAX_CANVAS_SIZE / Math.max(MAP_WIDTH, MAP_HEIGHT)));
+        // Avoid reallocating the canvas for small zoom steps
+        if (Math.abs(scale - pixelScale) < 0.1 * pixelScale) { return; }
+        pixelScale = scale;
+        setWidth(Math.ceil(MAP_WIDTH * pixelScale));
+        setHeight(Math.ceil(MAP_HEIGHT * pixelScale));
+        SCALE.setX(1 / pixelScale);
+        SCALE.setY(1 / pixelScale);
+        scheduleRedraw();
+    }
+
+    private void invalidateSprites() {
+        Arrays.fill(sprites, 0, size, -1);
+        scheduleRedraw();
+    }
+
+    private void ensureCapacity(final int CAPACITY) {
+        locations = Arrays.copyOf(locations, CAPACITY);
+        xs        = Arrays.copyOf(xs, CAPACITY);
+        ys        = Arrays.copyOf(ys, CAPACITY);
+        sprites   = Arrays.copyOf(sprites, CAPACITY);
+    }
+
+    // Coalesces all changes of one pulse into one redraw
+    private void scheduleRedraw() {
+        if (redrawPending) { return; }
+        redrawPending = true;
+        Platform.runLater(this::redraw);
+    }
+
+    void redraw() {
+        redrawPending = false;
+        GraphicsContext ctx = getGraphicsContext2D();
+        ctx.setTransform(1, 0, 0, 1, 0, 0);
+        ctx.clearRect(0, 0, getWidth(), getHeight());
+        ctx.setTransform(pixelScale, 0, 0, pixelScale, 0, 0);
+        // Resolve the sprites first, the atlas image might be replaced while it grows
+        for (int i = 0; i < size; i++) {
+            if (sprites[i] >= 0) { continue; }
+            Location location = locations[i];
+            sprites[i] = ATLAS.getSprite(null == location.getIconCode() ? defaultIconCode : location.getIconCode(),
+                                         location.getIconSize(),
+                                         null == location.getColor() ? defaultColor : location.getColor());
+        }
+        final Image  IMAGE       = ATLAS.getImage();
+        final double ATLAS_SCALE = ATLAS.getScale();
+        for (int i = 0; i < size; i++) {
+            int    sprite       = sprites[i];
+            int    spriteWidth  = ATLAS.getWidth(sprite);
+            int    spriteHeight = ATLAS.getHeight(sprite);
+            double width        = spriteWidth / ATLAS_SCALE;
+            double height       = spriteHeight / ATLAS_SCALE;
+            ctx.drawImage(IMAGE, ATLAS.getX(sprite), ATLAS.getY(sprite), spriteWidth, spriteHeight, xs[i] - width * 0.5, ys[i] - height * 0.5, width, height);
+        }
+    }
+}
@@ -63,6 +63,35 @@ public class Main extends Application {
         BusinessRegion.EU.setColor(Color.rgb(124, 208, 255));
         //BusinessRegion.APAC.setColor(Color.LIGHTSALMON);
 
+        // Airports, the same objects are added to the map and used for the routes
+        Location sfo = new Location("SFO", 37.619751, -122.374366);
+        Location yyc = new Location("YYC", 51.128148, -114.010791);
+        Location ord = new Location("ORD", 41.975806, -87.905294);
+        Location yow = new Location("YOW", 45.321867, -75.668200);
+        Location jfk = new Location("JFK", 40.642660, -73.781232);
+        Location gru = new Location("GRU", -23.427337, -46.478853);
+        Location rkv = new Location("RKV", 64.131830, -21.945686);
+        Location mad = new Location("MAD", 40.483162, -3.579211);
+        Location cdg = new Location("CDG", 49.014162, 2.541908);
+        Location lhr = new Location("LHR", 51.471125, -0.461951);
+        Location fra = LocationBuilder.create()
+                                      .name("FRA").latitude(50.040864).longitude(8.560409)
+                                      .color(Color.CRIMSON)
+                                      .iconCode(MaterialDesign.MDI_HEART)
+                                      .mouseEnterHandler(e -> ((FontIcon) e.getSource()).setFill(Color.CYAN))
+                                      .mousePressHandler(e -> {
+                                          System.out.println("Frankfurt Airport");
+                                          ((FontIcon) e.getSource()).setFill(Color.MAGENTA);
+                                      })
+                                      .mouseReleaseHandler(e -> ((FontIcon) e.getSource()).setFill(Color.CYAN))
+                                      .mouseExitHandler(e -> ((FontIcon) e.getSource()).setFill(Color.CRIMSON))
+                                      .build();
+        Location svo = new Location("SVO", 55.972401, 37.412537);
+        Location del = new Location("DEL", 28.555839, 77.100956);
+        Location pek = new Location("PEK", 40.077624, 116.605458);
+        Location nrt = new Location("NRT", 35.766948, 140.385254);
+        Location syd = new Location("SYD", -33.939040, 151.174996);
+
         world = WorldBuilder.create()
                             .resolution(Resolution.HI_RES)
                             //.backgroundColor(Color.web("#4aa9d7"))
@@ -73,38 +102,12 @@ public class Main extends Application {
                             //.locationColor(Color.web("#0000ff"))
                             //.selectedColor(Color.MAGENTA)
                             .locationIconCode(MaterialDesign.MDI_STAR)
-                            .locations(new Location("SFO", 37.619751, -122.374366),
-                                       new Location("YYC", 51.128148, -114.010791),
-                                       new Location("ORD", 41.975806, -87.905294),
-                                       new Location("YOW", 45.321867, -75.668200),
-                                       new Location("JFK", 40.642660, -73.781232),
-                                       new Location("GRU", -23.427337, -46.478853),
-                                       new Location("RKV", 64.131830, -21.945686),
-                                       new Location("MAD", 40.483162, -3.579211),
-                                       new Location("CDG", 49.014162, 2.541908),
-                                       new Location("LHR", 51.471125, -0.461951),
-                                       LocationBuilder.create()
-                                                      .name("FRA").latitude(50.040864).longitude(8.560409)
-                                                      .color(Color.CRIMSON)
-                                                      .iconCode(MaterialDesign.MDI_HEART)
-                                                      .mouseEnterHandler(e -> ((FontIcon) e.getSource()).setFill(Color.CYAN))
-                                                      .mousePressHandler(e -> {
-                                                          System.out.println("Frankfurt Airport");
-                                                          ((FontIcon) e.getSource()).setFill(Color.MAGENTA);
-                                                      })
-                                                      .mouseReleaseHandler(e -> ((FontIcon) e.getSource()).setFill(Color.CYAN))
-                                                      .mouseExitHandler(e -> ((FontIcon) e.getSource()).setFill(Color.CRIMSON))
-                                                      .build(),
-                                       new Location("SVO", 55.972401, 37.412537),
-                                       new Location("DEL", 28.555839, 77.100956),
-                                       new Location("PEK", 40.077624, 116.605458),
-                                       new Location("NRT", 35.766948, 140.385254),
-                                       new Location("SYD", -33.939040, 151.174996))
+                            .locations(sfo, yyc, ord, yow, jfk, gru, rkv, mad, cdg, lhr, fra, svo, del, pek, nrt, syd)
                             .mousePressHandler(evt -> {
                                 CountryPath countryPath = (CountryPath) evt.getSource();
                                 Locale      locale      = countryPath.getLocale();
                                 System.out.println(locale.getDisplayCountry() + " (" + locale.getISO3Country() + ")");
-                                System.out.println(Country.valueOf(countryPath.getName()).getValue() + " million people");
+                                System.out.println(countryPath.getCountry().getValue() + " million people");
                             })
                             .zoomEnabled(true)
                             .selectionEnabled(true)
@@ -122,13 +125,25 @@ public class Main extends Application {
                 country.setValue(new PopulationValueObject(null == value ? -1 : value));
             } catch (MissingResourceException e) {}
         }
+
+        // Flights per week between some of the airports
+        world.addRoute(fra, sfo, 14);
+        world.addRoute(fra, nrt, 21);
+        world.addRoute(fra, gru, 7);
+        world.addRoute(lhr, jfk, 70);
+        world.addRoute(sfo, nrt, 28);
+        world.addRoute(nrt, syd, 14);
+        world.addRoute(pek, svo, 21);
+        world.addRoute(del, cdg, 10);
     }
 
-    private static class PopulationValueObject implements ValueObject {
+    private static class PopulationValueObject implements NumericValueObject {
         private final double value;
 
         private PopulationValueObject(final double VALUE) { value = VALUE; }
 
+        @Override public double getValue() { return value < 0 ? Double.NaN : value; }
+
         @Override public String toString() { return String.valueOf((int) value); }
     }
 
@@ -327,6 +342,9 @@ public class Main extends Application {
     }
 
     @Override public void start(Stage stage) {
+        // Colors the countries by their population
+        new ChoroplethLayer(world).apply();
+
         StackPane pane = new StackPane(world);
         pane.setBackground(new Background(new BackgroundFill(world.getBackgroundColor(), CornerRadii.EMPTY, Insets.EMPTY)));
 
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.util.stream.IntStream;
+
+
+/**
+ * Mercator projection of latitude/longitude into the map coordinate space
+ * of the country paths. Has no dependency on the FX toolkit.
+ * The batch methods work on primitive arrays, allocate nothing and use the
+ * same code as the single point methods. The parallel variants split big
+ * arrays into chunks that are projected on the common fork join pool.
+ */
+public final class MapProjection {
+    public  static final double MAP_WIDTH          = 1009;
+    public  static final double MAP_HEIGHT         = 665;
+    private static final double OFFSET_X           = -MAP_WIDTH * 0.0285;
+    private static final double OFFSET_Y           = MAP_HEIGHT * 0.195;
+    private static final double X_SCALE            = MAP_WIDTH / 360;
+    private static final double Y_SCALE            = MAP_WIDTH / (2 * Math.PI);
+    private static final double Y_CENTER           = MAP_HEIGHT / 2 + OFFSET_Y;
+    private static final double RAD                = Math.PI / 180;
+    private static final int    CHUNK_SIZE         = 16_384;
+    private static final int    PARALLEL_THRESHOLD = 4 * CHUNK_SIZE;
+
+
+    // ******************** Constructors **************************************
+    private MapProjection() {}
+
+
+    // ******************** Methods *******************************************
+    public static double longitudeToX(final double LONGITUDE) {
+        return (LONGITUDE + 180) * X_SCALE + OFFSET_X;
+    }
+
+    // ln(tan(pi/4 + lat/2)) written as atanh(sin(lat)) which needs no tan()
+    public static double latitudeToY(final double LATITUDE) {
+        final double SIN = Math.sin(LATITUDE * RAD);
+        return Y_CENTER - Y_SCALE * 0.5 * Math.log((1 + SIN) / (1 - SIN));
+    }
+
+    public static double xToLongitude(final double X) {
+        return (X - OFFSET_X) / X_SCALE - 180;
+    }
+
+    public static double yToLatitude(final double Y) {
+        return (2 * Math.atan(Math.exp((Y_CENTER - Y) / Y_SCALE)) - Math.PI / 2) / RAD;
+    }
+
+    /**
+     * Projects the first COUNT positions into map coordinates.
+     * @param LATITUDES latitudes in degrees
+     * @param LONGITUDES longitudes in degrees
+     * @param X receives the x coordinates, may be the same array as LONGITUDES
+     * @param Y receives the y coordinates, may be the same array as LATITUDES
+     * @param COUNT number of positions
+     */
+    public static void project(final double[] LATITUDES, final double[] LONGITUDES, final double[] X, final double[] Y, final int COUNT) {
+        checkLength(COUNT, LATITUDES, LONGITUDES, X, Y);
+        project(LATITUDES, LONGITUDES, X, Y, 0, COUNT);
+    }
+    public static void projectParallel(final double[] LATITUDES, final double[] LONGITUDES, final double[] X, final double[] Y, final int COUNT) {
+        checkLength(COUNT, LATITUDES, LONGITUDES, X, Y);
+        if (COUNT < PARALLEL_THRESHOLD) {
+            project(LATITUDES, LONGITUDES, X, Y, 0, COUNT);
+            return;
+        }
+        IntStream.range(0, (COUNT + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel().forEach(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            project(LATITUDES, LONGITUDES, X, Y, from, Math.min(COUNT, from + CHUNK_SIZE));
+        });
+    }
+
+    /**
+     * Converts the first COUNT map coordinates back into positions.
+     * @param X x coordinates
+     * @param Y y coordinates
+     * @param LATITUDES receives the latitudes in degrees, may be the same array as Y
+     * @param LONGITUDES receives the longitudes in degrees, may be the same array as X
+     * @param COUNT number of positions
+     */
+    public static void xyToLatLon(final double[] X, final double[] Y, final double[] LATITUDES, final double[] LONGITUDES, final int COUNT) {
+        checkLength(COUNT, X, Y, LATITUDES, LONGITUDES);
+        xyToLatLon(X, Y, LATITUDES, LONGITUDES, 0, COUNT);
+    }
+    public static void xyToLatLonParallel(final double[] X, final double[] Y, final double[] LATITUDES, final double[] LONGITUDES, final int COUNT) {
+        checkLength(COUNT, X, Y, LATITUDES, LONGITUDES);
+        if (COUNT < PARALLEL_THRESHOLD) {
+            xyToLatLon(X, Y, LATITUDES, LONGITUDES, 0, COUNT);
+            return;
+        }
+        IntStream.range(0, (COUNT + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel().forEach(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            xyToLatLon(X, Y, LATITUDES, LONGITUDES, from, Math.min(COUNT, from + CHUNK_SIZE));
+        });
+    }
+
+    // Separate loops keep the linear x part free of calls so that it can be vectorized
+    private static void project(final double[] LATITUDES, final double[] LONGITUDES, final double[] X, final double[] Y, final int FROM, final int TO) {
+        for (int i = FROM; i < TO; i++) { X[i] = longitudeToX(LONGITUDES[i]); }
+        for (int i = FROM; i < TO; i++) { Y[i] = latitudeToY(LATITUDES[i]); }
+    }
+
+    private static void xyToLatLon(final double[] X, final double[] Y, final double[] LATITUDES, final double[] LONGITUDES, final int FROM, final int TO) {
+        for (int i = FROM; i < TO; i++) { LONGITUDES[i] = xToLongitude(X[i]); }
+        for (int i = FROM; i < TO; i++) { LATITUDES[i] = yToLatitude(Y[i]); }
+    }
+
+    private static void checkLength(final int COUNT, final double[] A, final double[] B, final double[] C, final double[] D) {
+        if (COUNT < 0) { throw new IllegalArgumentException("Count must not be negative"); }
+        if (A.length < COUNT || B.length < COUNT || C.length < COUNT || D.length < COUNT) {
+            throw new IllegalArgumentException("Arrays must hold at least " + COUNT + " values");
+        }
+    }
+}
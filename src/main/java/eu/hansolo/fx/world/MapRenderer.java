@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import eu.hansolo.fx.world.World.Resolution;
+import javafx.scene.paint.Color;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+
+/**
+ * Renders maps into PNG images without a JavaFX toolkit, a display or a GPU,
+ * e.g. for reports that are generated on a server. The countries are drawn
+ * by the Java2D software rasterizer (run with -Djava.awt.headless=true on
+ * machines without a display), locations are drawn as filled circles.
+ * One MapRenderer parses the geometry once and can be used by any number of
+ * threads at the same time, renderAll() renders a batch in parallel.
+ */
+public class MapRenderer {
+    private static final double            MAP_WIDTH  = MapProjection.MAP_WIDTH;
+    private static final double            MAP_HEIGHT = MapProjection.MAP_HEIGHT;
+    private        final CountryRasterizer RASTERIZER;
+    private        final int               width;
+    private        final int               height;
+    private volatile     Color             backgroundColor;
+    private volatile     Color             fillColor;
+    private volatile     Color             strokeColor;
+    private volatile     Color             locationColor;
+
+
+    // ******************** Constructors **************************************
+    public MapRenderer(final Resolution RESOLUTION) {
+        this(RESOLUTION, (int) MAP_WIDTH);
+    }
+    /**
+     * HI_RES maps are drawn from the simplified geometry that is detailed
+     * enough for the width of the images, which makes small images a lot
+     * cheaper without visible difference.
+     * @param RESOLUTION resolution of the country geometry
+     * @param WIDTH width of the images in pixels, the height follows from the aspect ratio of the map
+     */
+    public MapRenderer(final Resolution RESOLUTION, final int WIDTH) {
+        if (WIDTH < 1) { throw new IllegalArgumentException("Width must be positive"); }
+        RASTERIZER      = new CountryRasterizer(Resolution.HI_RES == RESOLUTION ? GeometryCache.getForPixelScale(WIDTH / MAP_WIDTH) : GeometryCache.get(RESOLUTION));
+        width           = WIDTH;
+        height          = (int) Math.round(WIDTH * MAP_HEIGHT / MAP_WIDTH);
+        backgroundColor = Color.web("#3f3f4f");
+        fillColor       = Color.web("#d9d9dc");
+        strokeColor     = Color.BLACK;
+        locationColor   = Color.web("#ff0000");
+    }
+
+
+    // ******************** Methods *******************************************
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public Color getBackgroundColor() { return backgroundColor; }
+    public void setBackgroundColor(final Color COLOR) { backgroundColor = COLOR; }
+
+    /**
+     * @return color of the countries that are not part of the color mapping
+     */
+    public Color getFillColor() { return fillColor; }
+    public void setFillColor(final Color COLOR) { fillColor = COLOR; }
+
+    public Color getStrokeColor() { return strokeColor; }
+    public void setStrokeColor(final Color COLOR) { strokeColor = COLOR; }
+
+    /**
+     * @return color of the locations that have no color of their own
+     */
+    public Color getLocationColor() { return locationColor; }
+    public void setLocationColor(final Color COLOR) { locationColor = COLOR; }
+
+    /**
+     * Renders one map, a value mapping can be turned into colors by ChoroplethLayer.classify().
+     * @param COLORS colors of the countries, all others get the fill color, transparent ones only get their outline
+     * @param LOCATIONS locations that will be drawn on top of the countries
+     * @return the image
+     */
+    public BufferedImage render(final Map<Country, Color> COLORS, final Collection<Location> LOCATIONS) {
+        final int[] FILLS = new int[Country.values().length];
+        Arrays.fill(FILLS, CountryRasterizer.toArgb(fillColor));
+        COLORS.forEach((country, color) -> FILLS[country.ordinal()] = CountryRasterizer.toArgb(color));
+
+        final double        PIXEL_SCALE = width / MAP_WIDTH;
+        // Images without alpha channel are encoded a lot faster
+        final int           TYPE        = backgroundColor.isOpaque() ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+        final BufferedImage IMAGE       = new BufferedImage(width, height, TYPE);
+        Graphics2D g2 = IMAGE.createGraphics();
+        g2.setColor(toAwt(backgroundColor));
+        g2.fillRect(0, 0, width, height);
+        RASTERIZER.render(g2, FILLS, CountryRasterizer.toArgb(strokeColor), 0, 0, PIXEL_SCALE, width, height);
+
+        if (LOCATIONS.isEmpty()) { return IMAGE; }
+        g2 = IMAGE.createGraphics();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (Location location : LOCATIONS) {
+                double x        = MapProjection.longitudeToX(location.getLongitude()) * PIXEL_SCALE;
+                double y        = MapProjection.latitudeToY(location.getLatitude()) * PIXEL_SCALE;
+                double diameter = location.getIconSize() * PIXEL_SCALE;
+                g2.setColor(toAwt(null == location.getColor() ? locationColor : location.getColor()));
+                g2.fill(new Ellipse2D.Double(x - diameter * 0.5, y - diameter * 0.5, diameter, diameter));
+            }
+        } finally {
+            g2.dispose();
+        }
+        return IMAGE;
+    }
+
+    /**
+     * @return the PNG encoded image of one map
+     */
+    public byte[] renderPng(final Map<Country, Color> COLORS, final Collection<Location> LOCATIONS) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(64 * 1024);
+        try {
+            ImageIO.write(render(COLORS, LOCATIONS), "png", output);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Renders all jobs in parallel on the common fork join pool. The consumer
+     * is called from several threads at the same time.
+     * @param JOBS maps that should be rendered
+     * @param CONSUMER receives every job together with its PNG bytes
+     * @return statistics of the batch including the throughput
+     */
+    public Result renderAll(final Collection<Job> JOBS, final BiConsumer<Job, byte[]> CONSUMER) {
+        final AtomicLong BYTES = new AtomicLong();
+        final long       START = System.nanoTime();
+        JOBS.parallelStream().forEach(job -> {
+            byte[] png = renderPng(job.getColors(), job.getLocations());
+            BYTES.addAndGet(png.length);
+            CONSUMER.accept(job, png);
+        });
+        return new Result(JOBS.size(), BYTES.get(), System.nanoTime() - START);
+    }
+
+    private static java.awt.Color toAwt(final Color COLOR) { return new java.awt.Color(CountryRasterizer.toArgb(COLOR), true); }
+
+
+    // ******************** Inner Classes *************************************
+    public static class Job {
+        private final String              id;
+        private final Map<Country, Color> colors;
+        private final Collection<Location> locations;
+
+
+        // ******************** Constructors **********************************
+        public Job(final String ID, final Map<Country, Color> COLORS) {
+            this(ID, COLORS, Collections.emptyList());
+        }
+        public Job(final String ID, final Map<Country, Color> COLORS, final Collection<Location> LOCATIONS) {
+            id        = ID;
+            colors    = COLORS;
+            locations = LOCATIONS;
+        }
+
+
+        // ******************** Methods ***************************************
+        public String getId() { return id; }
+
+        public Map<Country, Color> getColors() { return colors; }
+
+        public Collection<Location> getLocations() { return locations; }
+    }
+
+    public static class Result {
+        private final int  images;
+        private final long bytes;
+        private final long durationNanos;
+
+
+        // ******************** Constructors **********************************
+        Result(final int IMAGES, final long BYTES, final long DURATION_NANOS) {
+            images        = IMAGES;
+            bytes         = BYTES;
+            durationNanos = DURATION_NANOS;
+        }
+
+
+        // ******************** Methods ***************************************
+        public int getImages() { return images; }
+
+        /**
+         * @return the size of all PNG images
+         */
+        public long getBytes() { return bytes; }
+
+        public long getDurationNanos() { return durationNanos; }
+        public double getDurationMillis() { return durationNanos / 1_000_000.0; }
+
+        public double getImagesPerSecond() { return 0 == durationNanos ? 0 : images / (durationNanos / 1_000_000_000.0); }
+
+        @Override public String toString() {
+            return new StringBuilder().append("images: ").append(images)
+                                      .append(", bytes: ").append(bytes)
+                                      .append(", duration: ").append(String.format("%.3f", getDurationMillis())).append(" ms")
+                                      .append(", images/s: ").append(String.format("%.1f", getImagesPerSecond()))
+                                      .toString();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.transform.Scale;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+
+/**
+ * Draws weighted great circle routes between locations into one Canvas that
+ * covers the map coordinate space. The arc of a route is computed once in
+ * map coordinates and kept until the position of one of its locations
+ * changes, a new weight only changes the line width. The routes are grouped
+ * by line width and every group is stroked as one path, so thousands of
+ * routes need a handful of draw calls and no node per route.
+ * Must only be used on the FX application thread.
+ */
+class RouteLayer extends Canvas {
+    private static final double                MAX_CANVAS_SIZE = 4096;
+    private static final double                MAX_LATITUDE    = 85;
+    private static final double                SEGMENT_ANGLE   = Math.toRadians(2);
+    private static final int                   WIDTH_STEPS     = 8;
+    private static final double                MIN_LINE_WIDTH  = 0.25;
+    private static final double                MAX_LINE_WIDTH  = 2.5;
+    private        final double                MAP_WIDTH;
+    private        final double                MAP_HEIGHT;
+    private        final Map<RouteKey, Route>  ROUTES;
+    private        final Scale                 SCALE;
+    private              Color                 color;
+    private              double                pixelScale;
+    private              boolean               redrawPending;
+
+
+    // ******************** Constructors **************************************
+    RouteLayer(final double MAP_WIDTH, final double MAP_HEIGHT, final Color COLOR) {
+        this.MAP_WIDTH  = MAP_WIDTH;
+        this.MAP_HEIGHT = MAP_HEIGHT;
+        this.ROUTES     = new LinkedHashMap<>();
+        this.SCALE      = new Scale(1, 1, 0, 0);
+        this.color      = COLOR;
+        this.pixelScale = 0;
+        setMouseTransparent(true);
+        getTransforms().add(SCALE);
+        setPixelScale(1);
+    }
+
+
+    // ******************** Methods *******************************************
+    int size() { return ROUTES.size(); }
+
+    /**
+     * Adds the route between the given locations, adding a route again only
+     * changes its weight. The arc is recomputed if one of the locations moved.
+     * @param WEIGHT weight of the route, the line width is relative to the heaviest route
+     */
+    void set(final Location FROM, final Location TO, final double WEIGHT) {
+        if (!(WEIGHT >= 0) || Double.isInfinite(WEIGHT)) { throw new IllegalArgumentException("Weight must be a positive number"); }
+        final RouteKey KEY   = new RouteKey(FROM, TO);
+        Route          route = ROUTES.get(KEY);
+        if (null == route) {
+            route = new Route();
+            ROUTES.put(KEY, route);
+        }
+        if (null == route.arc ||
+            route.fromLatitude != FROM.getLatitude() || route.fromLongitude != FROM.getLongitude() ||
+            route.toLatitude   != TO.getLatitude()   || route.toLongitude   != TO.getLongitude()) {
+            route.fromLatitude  = FROM.getLatitude();
+            route.fromLongitude = FROM.getLongitude();
+            route.toLatitude    = TO.getLatitude();
+            route.toLongitude   = TO.getLongitude();
+            route.arc           = createArc(route.fromLatitude, route.fromLongitude, route.toLatitude, route.toLongitude, MAP_WIDTH);
+        }
+        route.weight = WEIGHT;
+        scheduleRedraw();
+    }
+
+    /**
+     * @return the weight of the route between the given locations or NaN if there is no such route
+     */
+    double getWeight(final Location FROM, final Location TO) {
+        Route route = ROUTES.get(new RouteKey(FROM, TO));
+        return null == route ? Double.NaN : route.weight;
+    }
+
+    boolean remove(final Location FROM, final Location TO) {
+        if (null == ROUTES.remove(new RouteKey(FROM, TO))) { return false; }
+        scheduleRedraw();
+        return true;
+    }
+
+    void clear() {
+        ROUTES.clear();
+        scheduleRedraw();
+    }
+
+    void setColor(final Color COLOR) {
+        color = COLOR;
+        scheduleRedraw();
+    }
+
+    /**
+     * Sets the number of canvas pixels per map unit. The size of the canvas is
+     * limited to MAX_CANVAS_SIZE pixels, beyond that the bitmap will be scaled.
+     * @param PIXEL_SCALE canvas pixels per map unit
+     */
+    void setPixelScale(final double PIXEL_SCALE) {
+        double scale = Math.max(1, Math.min(PIXEL_SCALE, MAX_CANVAS_SIZE / Math.max(MAP_WIDTH, MAP_HEIGHT)));
+        // Avoid reallocating the canvas for small zoom steps
+        if (Math.abs(scale - pixelScale) < 0.1 * pixelScale) { return; }
+        pixelScale = scale;
+        setWidth(Math.ceil(MAP_WIDTH * pixelScale));
+        setHeight(Math.ceil(MAP_HEIGHT * pixelScale));
+        SCALE.setX(1 / pixelScale);
+        SCALE.setY(1 / pixelScale);
+        scheduleRedraw();
+    }
+
+    // Coalesces all changes of one pulse into one redraw
+    private void scheduleRedraw() {
+        if (redrawPending) { return; }
+        redrawPending = true;
+        Platform.runLater(this::redraw);
+    }
+
+    void redraw() {
+        redrawPending = false;
+        GraphicsContext ctx = getGraphicsContext2D();
+        ctx.setTransform(1, 0, 0, 1, 0, 0);
+        ctx.clearRect(0, 0, getWidth(), getHeight());
+        if (ROUTES.isEmpty()) { return; }
+
+        double maxWeight = 0;
+        for (Route route : ROUTES.values()) { maxWeight = Math.max(maxWeight, route.weight); }
+        List<List<Route>> groups = new ArrayList<>(WIDTH_STEPS);
+        for (int i = 0; i < WIDTH_STEPS; i++) { groups.add(new ArrayList<>()); }
+        for (Route route : ROUTES.values()) {
+            int step = 0 == maxWeight ? 0 : (int) Math.round(route.weight / maxWeight * (WIDTH_STEPS - 1));
+            groups.get(step).add(route);
+        }
+
+        ctx.setTransform(pixelScale, 0, 0, pixelScale, 0, 0);
+        ctx.setStroke(color);
+        ctx.setLineCap(StrokeLineCap.ROUND);
+        ctx.setLineJoin(StrokeLineJoin.ROUND);
+        // Heavy routes are drawn last so that they stay on top
+        for (int step = 0; step < WIDTH_STEPS; step++) {
+            List<Route> group = groups.get(step);
+            if (group.isEmpty()) { continue; }
+            ctx.setLineWidth(MIN_LINE_WIDTH + (MAX_LINE_WIDTH - MIN_LINE_WIDTH) * step / (WIDTH_STEPS - 1));
+            ctx.beginPath();
+            for (Route route : group) {
+                for (float[] part : route.arc) {
+                    ctx.moveTo(part[0], part[1]);
+                    for (int i = 2; i < part.length; i += 2) { ctx.lineTo(part[i], part[i + 1]); }
+                }
+            }
+            ctx.stroke();
+        }
+    }
+
+    /**
+     * Computes the great circle arc between two positions as polylines in map
+     * coordinates. The arc is split into several parts where it leaves the map
+     * on one side and enters it on the other side.
+     * @return the parts of the arc, every part holds x/y pairs
+     */
+    static float[][] createArc(final double LAT_1, final double LON_1, final double LAT_2, final double LON_2, final double MAP_WIDTH) {
+        final double COS_LAT_1 = Math.cos(Math.toRadians(LAT_1));
+        final double COS_LAT_2 = Math.cos(Math.toRadians(LAT_2));
+        final double X1        = COS_LAT_1 * Math.cos(Math.toRadians(LON_1));
+        final double Y1        = COS_LAT_1 * Math.sin(Math.toRadians(LON_1));
+        final double Z1        = Math.sin(Math.toRadians(LAT_1));
+        final double X2        = COS_LAT_2 * Math.cos(Math.toRadians(LON_2));
+        final double Y2        = COS_LAT_2 * Math.sin(Math.toRadians(LON_2));
+        final double Z2        = Math.sin(Math.toRadians(LAT_2));
+        final double CX        = Y1 * Z2 - Z1 * Y2;
+        final double CY        = Z1 * X2 - X1 * Z2;
+        final double CZ        = X1 * Y2 - Y1 * X2;
+        final double SIN       = Math.sqrt(CX * CX + CY * CY + CZ * CZ);
+        final double ANGLE     = Math.atan2(SIN, X1 * X2 + Y1 * Y2 + Z1 * Z2);
+        final int    SEGMENTS  = Math.max(1, (int) Math.ceil(ANGLE / SEGMENT_ANGLE));
+        final int    COUNT     = SEGMENTS + 1;
+
+        // Spherical linear interpolation between the two unit vectors
+        final double[] LATS = new double[COUNT];
+        final double[] LONS = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            double t = (double) i / SEGMENTS;
+            double lat;
+            double lon;
+            if (SIN < 1e-9) {
+                // Same or antipodal positions have no unique great circle
+                lat = LAT_1 + (LAT_2 - LAT_1) * t;
+                lon = LON_1 + (LON_2 - LON_1) * t;
+            } else {
+                double a = Math.sin((1 - t) * ANGLE) / SIN;
+                double b = Math.sin(t * ANGLE) / SIN;
+                double x = a * X1 + b * X2;
+                double y = a * Y1 + b * Y2;
+                double z = a * Z1 + b * Z2;
+                lat = Math.toDegrees(Math.atan2(z, Math.sqrt(x * x + y * y)));
+                lon = Math.toDegrees(Math.atan2(y, x));
+            }
+            // Keep the longitudes continuous, the arc may run beyond +-180 degrees
+            if (i > 0) {
+                while (lon - LONS[i - 1] > 180)  { lon -= 360; }
+                while (lon - LONS[i - 1] < -180) { lon += 360; }
+            }
+            LATS[i] = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+            LONS[i] = lon;
+        }
+        MapProjection.project(LATS, LONS, LONS, LATS, COUNT);
+        final double[] XS = LONS;
+        final double[] YS = LATS;
+
+        // The map wraps at its left and right edge, not exactly at the antimeridian
+        List<float[]> parts  = new ArrayList<>(2);
+        float[]       part   = new float[COUNT * 2 + 2];
+        int           length = 0;
+        int           copy   = (int) Math.floor(XS[0] / MAP_WIDTH);
+        part[length++] = (float) (XS[0] - copy * MAP_WIDTH);
+        part[length++] = (float) YS[0];
+        for (int i = 1; i < COUNT; i++) {
+            int nextCopy = (int) Math.floor(XS[i] / MAP_WIDTH);
+            if (nextCopy != copy) {
+                double edge = Math.max(copy, nextCopy) * MAP_WIDTH;
+                double y    = YS[i - 1] + (edge - XS[i - 1]) / (XS[i] - XS[i - 1]) * (YS[i] - YS[i - 1]);
+                part[length++] = (float) (edge - copy * MAP_WIDTH);
+                part[length++] = (float) y;
+                parts.add(Arrays.copyOf(part, length));
+                length         = 0;
+                part[length++] = (float) (edge - nextCopy * MAP_WIDTH);
+                part[length++] = (float) y;
+                copy           = nextCopy;
+            }
+            part[length++] = (float) (XS[i] - copy * MAP_WIDTH);
+            part[length++] = (float) YS[i];
+        }
+        parts.add(Arrays.copyOf(part, length));
+        return parts.toArray(new float[0][]);
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static class Route {
+        private double    fromLatitude;
+        private double    fromLongitude;
+        private double    toLatitude;
+        private double    toLongitude;
+        private double    weight;
+        private float[][] arc;
+    }
+
+    private static class RouteKey {
+        private final Location FROM;
+        private final Location TO;
+
+
+        // ******************** Constructors **********************************
+        RouteKey(final Location FROM, final Location TO) {
+            this.FROM = Objects.requireNonNull(FROM);
+            this.TO   = Objects.requireNonNull(TO);
+        }
+
+
+        // ******************** Methods ***************************************
+        @Override public boolean equals(final Object OBJECT) {
+            if (this == OBJECT) { return true; }
+            if (!(OBJECT instanceof RouteKey)) { return false; }
+            RouteKey key = (RouteKey) OBJECT;
+            return FROM.equals(key.FROM) && TO.equals(key.TO);
+        }
+
+        @Override public int hashCode() { return 31 * FROM.hashCode() + TO.hashCode(); }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.fx.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Converts the polygon subset of the SVG path syntax that is used in the
+ * resolution properties (M, L, H, V, Z in absolute and relative form) into
+ * rings of absolute x/y coordinates.
+ */
+final class SvgPathParser {
+    private final String CONTENT;
+    private final int    LENGTH;
+    private       int    index;
+
+
+    // ******************** Constructors **************************************
+    private SvgPathParser(final String CONTENT) {
+        this.CONTENT = CONTENT;
+        this.LENGTH  = CONTENT.length();
+        this.index   = 0;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns one float array per ring where each array contains the
+     * interleaved x and y coordinates of the ring (x0, y0, x1, y1, ...).
+     * @param CONTENT svg path content like "M619.87,393.72L620.37,393.57z"
+     * @return the rings of the given path
+     */
+    static float[][] parse(final String CONTENT) { return new SvgPathParser(CONTENT).parse(); }
+
+    private float[][] parse() {
+        List<float[]> rings   = new ArrayList<>();
+        float[]       ring    = new float[64];
+        int           size    = 0;
+        double        x       = 0;
+        double        y       = 0;
+        double        startX  = 0;
+        double        startY  = 0;
+        char          command = ' ';
+
+        while (skipSeparators()) {
+            char c = CONTENT.charAt(index);
+            if (Character.isLetter(c)) {
+                command = c;
+                index++;
+                if ('z' == command || 'Z' == command) {
+                    if (size > 2) { rings.add(Arrays.copyOf(ring, size)); }
+                    size = 0;
+                    x    = startX;
+                    y    = startY;
+                }
+                continue;
+            }
+            switch (command) {
+                case 'M':
+                case 'm':
+                    if (size > 2) { rings.add(Arrays.copyOf(ring, size)); }
+                    size    = 0;
+                    x       = 'm' == command ? x + readNumber() : readNumber();
+                    y       = 'm' == command ? y + readNumber() : readNumber();
+                    startX  = x;
+                    startY  = y;
+                    // Coordinate pairs that follow a moveto are implicit lineto commands
+                    command = 'm' == command ? 'l' : 'L';
+                    break;
+                case 'L': x  = readNumber(); y  = readNumber(); break;
+                case 'l': x += readNumber(); y += readNumber(); break;
+                case 'H': x  = readNumber(); break;
+                case 'h': x += readNumber(); break;
+                case 'V': y  = readNumber(); break;
+                case 'v': y += readNumber(); break;
+                default : throw new IllegalArgumentException("Unsupported path command '" + command + "' at index " + index);
+            }
+            if (size + 2 > ring.length) { ring = Arrays.copyOf(ring, ring.length * 2); }
+            ring[size++] = (float) x;
+            ring[size++] = (float) y;
+        }
+        if (size > 2) { rings.add(Arrays.copyOf(ring, size)); }
+        return rings.toArray(new float[rings.size()][]);
+    }
+
+    private boolean skipSeparators() {
+        while (index < LENGTH) {
+            char c = CONTENT.charAt(index);
+            if (',' != c && !Character.isWhitespace(c)) { return true; }
+            index++;
+        }
+        return false;
+    }
+
+    private double readNumber() {
+        if (!skipSeparators()) { throw new IllegalArgumentException("Missing coordinate at end of path"); }
+        int start = index;
+        if ('-' == CONTENT.charAt(index) || '+' == CONTENT.charAt(index)) { index++; }
+        boolean dot = false;
+        while (index < LENGTH) {
+            char c = CONTENT.charAt(index);
+            if (Character.isDigit(c)) {
+                index++;
+            } else if ('.' == c && !dot) {
+                dot = true;
+                index++;
+            } else if (('e' == c || 'E' == c) && index + 1 < LENGTH) {
+                index++;
+                if ('-' == CONTENT.charAt(index) || '+' == CONTENT.charAt(index)) { index++; }
+            } else {
+                break;
+            }
+        }
+        if (start == index) { throw new IllegalArgumentException("Expected coordinate at index " + index); }
+        return Double.parseDouble(CONTENT.substring(start, index));
+    }
+}
@@ -16,6 +16,8 @@
 
 package eu.hansolo.fx.world;
 
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
 import javafx.application.Platform;
 import javafx.beans.DefaultProperty;
 import javafx.beans.property.BooleanProperty;
@@ -25,7 +27,6 @@ import javafx.beans.property.DoublePropertyBase;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ObjectPropertyBase;
 import javafx.collections.FXCollections;
-import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import javafx.css.CssMetaData;
@@ -36,11 +37,14 @@ import javafx.css.StyleablePropertyFactory;
 import javafx.event.EventHandler;
 import javafx.event.EventType;
 import javafx.event.WeakEventHandler;
+import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
+import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
 import javafx.scene.CacheHint;
+import javafx.scene.Cursor;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.control.Tooltip;
@@ -52,23 +56,35 @@ import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.SVGPath;
 import javafx.scene.shape.Shape;
 import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.util.Duration;
 import org.kordamp.ikonli.Ikon;
 import org.kordamp.ikonli.javafx.FontIcon;
 import org.kordamp.ikonli.materialdesign.MaterialDesign;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static javafx.scene.input.MouseEvent.MOUSE_ENTERED;
 import static javafx.scene.input.MouseEvent.MOUSE_EXITED;
@@ -82,18 +98,20 @@ import static javafx.scene.input.MouseEvent.MOUSE_RELEASED;
 @DefaultProperty("children")
 public class World extends Region {
     public enum Resolution { HI_RES, LO_RES };
+    public enum RenderMode { NODES, CANVAS, TILES };
     private static final StyleablePropertyFactory<World> FACTORY          = new StyleablePropertyFactory<>(Region.getClassCssMetaData());
-    private static final String                          HIRES_PROPERTIES = "eu/hansolo/fx/world/hires.properties";
-    private static final String                          LORES_PROPERTIES = "eu/hansolo/fx/world/lores.properties";
-    private static final double                          PREFERRED_WIDTH  = 1009;
-    private static final double                          PREFERRED_HEIGHT = 665;
+    private static final double                          PREFERRED_WIDTH  = MapProjection.MAP_WIDTH;
+    private static final double                          PREFERRED_HEIGHT = MapProjection.MAP_HEIGHT;
     private static final double                          MINIMUM_WIDTH    = 100;
     private static final double                          MINIMUM_HEIGHT    = 66;
     private static final double                          MAXIMUM_WIDTH    = 2018;
     private static final double                          MAXIMUM_HEIGHT   = 1330;
-    private static       double                          MAP_OFFSET_X     = -PREFERRED_WIDTH * 0.0285;
-    private static       double                          MAP_OFFSET_Y     = PREFERRED_HEIGHT * 0.195;
     private static final double                          ASPECT_RATIO     = PREFERRED_HEIGHT / PREFERRED_WIDTH;
+    private static final int                             LOAD_BATCH_SIZE  = 32;
+    private static final double                          INDEX_CELL_SIZE  = 4;
+    private static final double                          CLUSTER_RADIUS   = 40;
+    private static final double                          CULLING_MARGIN   = 0.25;
+    private static final Duration                        CLUSTER_FLIGHT   = Duration.millis(500);
     private static final CssMetaData<World, Color>       BACKGROUND_COLOR = FACTORY.createColorCssMetaData("-background-color", s -> s.backgroundColor, Color.web("#3f3f4f"), false);
     private        final StyleableProperty<Color>        backgroundColor;
     private static final CssMetaData<World, Color>       FILL_COLOR = FACTORY.createColorCssMetaData("-fill-color", s -> s.fillColor, Color.web("#d9d9dc"), false);
@@ -108,12 +126,55 @@ public class World extends Region {
     private        final StyleableProperty<Color>        selectedColor;
     private static final CssMetaData<World, Color>       LOCATION_COLOR = FACTORY.createColorCssMetaData("-location-color", s -> s.locationColor, Color.web("#ff0000"), false);
     private        final StyleableProperty<Color>        locationColor;
+    private static final CssMetaData<World, Color>       ROUTE_COLOR = FACTORY.createColorCssMetaData("-route-color", s -> s.routeColor, Color.web("#ffa500b3"), false);
+    private        final StyleableProperty<Color>        routeColor;
     private              BooleanProperty                 hoverEnabled;
+    private              BooleanProperty                 tooltipsEnabled;
     private              BooleanProperty                 selectionEnabled;
     private              ObjectProperty<Country>         selectedCountry;
     private              BooleanProperty                 zoomEnabled;
     private              DoubleProperty                  scaleFactor;
-    private              Properties                      resolutionProperties;
+    private              BooleanProperty                 levelOfDetailEnabled;
+    private              BooleanProperty                 cullingEnabled;
+    private              BooleanProperty                 locationLayerEnabled;
+    private              BooleanProperty                 clusteringEnabled;
+    private              DoubleProperty                  hiResThreshold;
+    private              DoubleProperty                  loResThreshold;
+    private              Resolution                      resolution;
+    private              RenderMode                      renderMode;
+    private              CountryRenderer                 countryRenderer;
+    private              Map<Country, CountryPath>       canvasEventSources;
+    private              Country                         hoveredCountry;
+    private              Tooltip                         tooltip;
+    private              Node                            tooltipNode;
+    private              LocationLayer                   locationLayer;
+    private              RouteLayer                      routeLayer;
+    private              Location                        hoveredLocation;
+    private              Shape                           hoveredLocationIcon;
+    private              boolean                         locationsVisible;
+    private              Group                           clusterGroup;
+    private              LocationClusterer               clusterer;
+    private              boolean                         clustersDirty;
+    private              int                             clusterGeneration;
+    private              Geometry                        geometry;
+    private        final Map<Country, Bounds>            countryBounds;
+    private        final Map<CRegion, Bounds>            regionBounds;
+    private              Geometry                        detailGeometry;
+    private              boolean                         detailGeometryLoading;
+    private              Set<Country>                    detailCountries;
+    private              Geometry                        simplifiedGeometry;
+    private              double                          simplifiedTolerance;
+    private              boolean                         simplificationLoading;
+    private              Map<Country, Geometry>          simplifiedCountries;
+    private              int                             culledCountryCount;
+    private              int                             culledPathCount;
+    private        final Executor                        executor;
+    private              boolean                         viewportUpdatePending;
+    private              boolean                         viewportUpdateDeferred;
+    private        final Camera                          camera;
+    private        final Panner                          panner;
+    private        final CountryUpdateQueue              countryUpdates;
+    private        final AtomicBoolean                   countryUpdatePending;
     private              Country                         formerSelectedCountry;
     private              double                          zoomSceneX;
     private              double                          zoomSceneY;
@@ -122,14 +183,19 @@ public class World extends Region {
     protected            Ikon                            locationIconCode;
     protected            Pane                            pane;
     protected            Group                           group;
-    protected            Map<String, List<CountryPath>>  countryPaths;
+    protected            Map<Country, List<CountryPath>> countryPaths;
+    private        final Map<String, List<CountryPath>>  countryPathsByName;
     protected            ObservableMap<Location, Shape>  locations;
+    private              LocationIndex                   locationIndex;
     // internal event handlers
     protected            EventHandler<MouseEvent>        _mouseEnterHandler;
     protected            EventHandler<MouseEvent>        _mousePressHandler;
     protected            EventHandler<MouseEvent>        _mouseReleaseHandler;
     protected            EventHandler<MouseEvent>        _mouseExitHandler;
     private              EventHandler<ScrollEvent>       _scrollEventHandler;
+    private              EventHandler<MouseEvent>        _canvasMouseHandler;
+    private              EventHandler<MouseEvent>        _locationLayerMouseHandler;
+    private              EventHandler<MouseEvent>        _panHandler;
     // exposed event handlers
     private              EventHandler<MouseEvent>        mouseEnterHandler;
     private              EventHandler<MouseEvent>        mousePressHandler;
@@ -142,7 +208,36 @@ public class World extends Region {
         this(Resolution.HI_RES);
     }
     public World(final Resolution RESOLUTION) {
-        resolutionProperties = readProperties(Resolution.HI_RES == RESOLUTION ? World.HIRES_PROPERTIES : World.LORES_PROPERTIES);
+        this(RESOLUTION, RenderMode.NODES);
+    }
+    /**
+     * RenderMode.NODES creates one CountryPath node per path, RenderMode.CANVAS
+     * draws all countries into one Canvas and does the hit testing in code.
+     * RenderMode.TILES renders the countries into cached raster tiles in the
+     * background and only shows the tiles that are visible, which keeps high
+     * zoom levels cheap.
+     * In RenderMode.CANVAS and RenderMode.TILES the mouse handlers get a
+     * CountryPath without content as source of the events, getCountryPaths()
+     * will be empty.
+     * SVGPath only accepts string content, so in RenderMode.NODES the decoded
+     * rings are written as svg content that the toolkit parses again. The
+     * other modes draw the decoded rings directly and start about four times
+     * faster with HI_RES (see StartupBenchmark).
+     * @param RESOLUTION resolution of the map
+     * @param RENDER_MODE the way the countries will be rendered
+     */
+    public World(final Resolution RESOLUTION, final RenderMode RENDER_MODE) {
+        this(RESOLUTION, RENDER_MODE, GeometryCache.get(RESOLUTION), true, ForkJoinPool.commonPool());
+    }
+    private World(final Resolution RESOLUTION, final RenderMode RENDER_MODE, final Geometry GEOMETRY, final boolean CREATE_PATHS, final Executor EXECUTOR) {
+        resolution           = RESOLUTION;
+        renderMode           = RENDER_MODE;
+        geometry             = GEOMETRY;
+        executor             = EXECUTOR;
+        countryBounds        = createCountryBounds(GEOMETRY);
+        regionBounds         = new HashMap<>();
+        detailCountries      = EnumSet.noneOf(Country.class);
+        simplifiedCountries  = new EnumMap<>(Country.class);
         backgroundColor      = new StyleableObjectProperty<Color>(BACKGROUND_COLOR.getInitialValue(World.this)) {
             @Override protected void invalidated() { setBackground(new Background(new BackgroundFill(get(), CornerRadii.EMPTY, Insets.EMPTY))); }
             @Override public Object getBean() { return World.this; }
@@ -182,16 +277,28 @@ public class World extends Region {
         locationColor        = new StyleableObjectProperty<Color>(LOCATION_COLOR.getInitialValue(this)) {
             @Override protected void invalidated() {
                 locations.forEach((location, shape) -> shape.setFill(null == location.getColor() ? get() : location.getColor()));
+                if (null != locationLayer) { locationLayer.setDefaultColor(get()); }
             }
             @Override public Object getBean() { return World.this; }
             @Override public String getName() { return "locationColor"; }
             @Override public CssMetaData<? extends Styleable, Color> getCssMetaData() { return LOCATION_COLOR; }
         };
+        routeColor           = new StyleableObjectProperty<Color>(ROUTE_COLOR.getInitialValue(this)) {
+            @Override protected void invalidated() { if (null != routeLayer) { routeLayer.setColor(get()); } }
+            @Override public Object getBean() { return World.this; }
+            @Override public String getName() { return "routeColor"; }
+            @Override public CssMetaData<? extends Styleable, Color> getCssMetaData() { return ROUTE_COLOR; }
+        };
         hoverEnabled         = new BooleanPropertyBase(true) {
             @Override protected void invalidated() {}
             @Override public Object getBean() { return World.this; }
             @Override public String getName() { return "hoverEnabled"; }
         };
+        tooltipsEnabled      = new BooleanPropertyBase(true) {
+            @Override protected void invalidated() { if (!get()) { setTooltip(null, null); } }
+            @Override public Object getBean() { return World.this; }
+            @Override public String getName() { return "tooltipsEnabled"; }
+        };
         selectionEnabled     = new BooleanPropertyBase(false) {
             @Override protected void invalidated() {}
             @Override public Object getBean() { return World.this; }
@@ -224,18 +331,61 @@ public class World extends Region {
             @Override public Object getBean() { return World.this; }
             @Override public String getName() { return "scaleFactor"; }
         };
-        countryPaths         = createCountryPaths();
+        levelOfDetailEnabled = new BooleanPropertyBase(false) {
+            @Override protected void invalidated() { scheduleViewportUpdate(); }
+            @Override public Object getBean() { return World.this; }
+            @Override public String getName() { return "levelOfDetailEnabled"; }
+        };
+        cullingEnabled       = new BooleanPropertyBase(true) {
+            @Override protected void invalidated() { scheduleViewportUpdate(); }
+            @Override public Object getBean() { return World.this; }
+            @Override public String getName() { return "cullingEnabled"; }
+        };
+        locationLayerEnabled = new BooleanPropertyBase(false) {
+            @Override protected void invalidated() { setLocationLayer(get()); }
+            @Override public Object getBean() { return World.this; }
+            @Override public String getName() { return "locationLayerEnabled"; }
+        };
+        clusteringEnabled    = new BooleanPropertyBase(false) {
+            @Override protected void invalidated() { setClustering(get()); }
+            @Override public Object getBean() { return World.this; }
+            @Override public String getName() { return "clusteringEnabled"; }
+        };
+        hiResThreshold       = new DoublePropertyBase(3.0) {
+            @Override protected void invalidated() { scheduleViewportUpdate(); }
+            @Override public Object getBean() { return World.this; }
+            @Override public String getName() { return "hiResThreshold"; }
+        };
+        loResThreshold       = new DoublePropertyBase(2.5) {
+            @Override protected void invalidated() { scheduleViewportUpdate(); }
+            @Override public Object getBean() { return World.this; }
+            @Override public String getName() { return "loResThreshold"; }
+        };
+        countryPaths         = CREATE_PATHS && RenderMode.NODES == RENDER_MODE ? createCountryPaths(GEOMETRY) : new EnumMap<>(Country.class);
+        countryPathsByName   = new CountryPathsByName();
+        countryRenderer      = RenderMode.CANVAS == RENDER_MODE ? new CountryCanvas(GEOMETRY, PREFERRED_WIDTH, PREFERRED_HEIGHT) :
+                               RenderMode.TILES  == RENDER_MODE ? new CountryTiles(GEOMETRY, PREFERRED_WIDTH, PREFERRED_HEIGHT) : null;
         locations            = FXCollections.observableHashMap();
+        locationIndex        = new LocationIndex(PREFERRED_WIDTH, PREFERRED_HEIGHT, INDEX_CELL_SIZE);
+        countryUpdates       = new CountryUpdateQueue();
+        countryUpdatePending = new AtomicBoolean(false);
+        locationsVisible     = true;
 
         locationIconCode     = MaterialDesign.MDI_CHECKBOX_BLANK_CIRCLE;
         pane                 = new Pane();
         group                = new Group();
+        camera               = new Camera();
+        panner               = new Panner();
 
         _mouseEnterHandler   = evt -> handleMouseEvent(evt, mouseEnterHandler);
         _mousePressHandler   = evt -> handleMouseEvent(evt, mousePressHandler);
         _mouseReleaseHandler = evt -> handleMouseEvent(evt, mouseReleaseHandler);
         _mouseExitHandler    = evt -> handleMouseEvent(evt, mouseExitHandler);
+        _canvasMouseHandler  = evt -> handleCanvasMouseEvent(evt);
+        _locationLayerMouseHandler = evt -> handleLocationLayerMouseEvent(evt);
+        _panHandler          = evt -> handlePanEvent(evt);
         _scrollEventHandler  = evt -> {
+            camera.cancel();
             if (group.getTranslateX() != 0 || group.getTranslateY() != 0) { resetZoom(); }
             double delta    = 1.2;
             double scale    = getScaleFactor();
@@ -274,22 +424,15 @@ public class World extends Region {
 
         getStyleClass().add("world");
 
-        Color fill   = getFillColor();
-        Color stroke = getStrokeColor();
-
-        countryPaths.forEach((name, pathList) -> {
-            Country country = Country.valueOf(name);
-            pathList.forEach(path -> {
-                path.setFill(null == country.getColor() ? fill : country.getColor());
-                path.setStroke(stroke);
-                path.setStrokeWidth(0.2);
-                path.setOnMouseEntered(new WeakEventHandler<>(_mouseEnterHandler));
-                path.setOnMousePressed(new WeakEventHandler<>(_mousePressHandler));
-                path.setOnMouseReleased(new WeakEventHandler<>(_mouseReleaseHandler));
-                path.setOnMouseExited(new WeakEventHandler<>(_mouseExitHandler));
+        if (null == countryRenderer) {
+            countryPaths.forEach((country, pathList) -> {
+                initCountryPaths(country, pathList);
+                pane.getChildren().addAll(pathList);
             });
-            pane.getChildren().addAll(pathList);
-        });
+        } else {
+            initCountryCanvas();
+            pane.getChildren().add(countryRenderer.getNode());
+        }
 
         group.getChildren().add(pane);
 
@@ -298,20 +441,47 @@ public class World extends Region {
         setBackground(new Background(new BackgroundFill(getBackgroundColor(), CornerRadii.EMPTY, Insets.EMPTY)));
     }
 
+    private void initCountryPaths(final Country COUNTRY, final List<CountryPath> PATHS) {
+        Color fill   = isSelectionEnabled() && COUNTRY == getSelectedCountry() ? getSelectedColor() : null == COUNTRY.getColor() ? getFillColor() : COUNTRY.getColor();
+        Color stroke = getStrokeColor();
+        for (CountryPath path : PATHS) {
+            path.setFill(fill);
+            path.setStroke(stroke);
+            path.setStrokeWidth(0.2);
+            path.setOnMouseEntered(new WeakEventHandler<>(_mouseEnterHandler));
+            path.setOnMousePressed(new WeakEventHandler<>(_mousePressHandler));
+            path.setOnMouseReleased(new WeakEventHandler<>(_mouseReleaseHandler));
+            path.setOnMouseExited(new WeakEventHandler<>(_mouseExitHandler));
+        }
+    }
+
+    private void initCountryCanvas() {
+        for (Country country : geometry.getCountries()) {
+            countryRenderer.setFill(country, isSelectionEnabled() && country == getSelectedCountry() ? getSelectedColor() : null == country.getColor() ? getFillColor() : country.getColor());
+        }
+        countryRenderer.setStroke(getStrokeColor());
+        canvasEventSources = new EnumMap<>(Country.class);
+        countryRenderer.getNode().setOnMouseMoved(new WeakEventHandler<>(_canvasMouseHandler));
+        countryRenderer.getNode().setOnMousePressed(new WeakEventHandler<>(_canvasMouseHandler));
+        countryRenderer.getNode().setOnMouseReleased(new WeakEventHandler<>(_canvasMouseHandler));
+        countryRenderer.getNode().setOnMouseExited(new WeakEventHandler<>(_canvasMouseHandler));
+    }
+
     private void registerListeners() {
         widthProperty().addListener(o -> resize());
         heightProperty().addListener(o -> resize());
+        scaleFactor.addListener(o -> scheduleViewportUpdate());
+        translateXProperty().addListener(o -> scheduleViewportUpdate());
+        translateYProperty().addListener(o -> scheduleViewportUpdate());
+        group.translateXProperty().addListener(o -> scheduleViewportUpdate());
+        group.translateYProperty().addListener(o -> scheduleViewportUpdate());
+        addEventFilter(MouseEvent.MOUSE_PRESSED, _panHandler);
+        addEventFilter(MouseEvent.MOUSE_DRAGGED, _panHandler);
+        addEventFilter(MouseEvent.MOUSE_RELEASED, _panHandler);
+        addEventFilter(MouseEvent.MOUSE_CLICKED, _panHandler);
         sceneProperty().addListener(o -> {
             if (!locations.isEmpty()) { addShapesToScene(locations.values()); }
             if (isZoomEnabled()) { getScene().addEventFilter( ScrollEvent.ANY, new WeakEventHandler<>(_scrollEventHandler)); }
-
-            locations.addListener((MapChangeListener<Location, Shape>) CHANGE -> {
-                if (CHANGE.wasAdded()) {
-                    addShapesToScene(CHANGE.getValueAdded());
-                } else if(CHANGE.wasRemoved()) {
-                    Platform.runLater(() -> pane.getChildren().remove(CHANGE.getValueRemoved()));
-                }
-            });
         });
     }
 
@@ -326,7 +496,10 @@ public class World extends Region {
 
     @Override public ObservableList<Node> getChildren() { return super.getChildren(); }
 
-    public Map<String, List<CountryPath>> getCountryPaths() { return countryPaths; }
+    /**
+     * @return read only view of the country paths with the country names as keys
+     */
+    public Map<String, List<CountryPath>> getCountryPaths() { return countryPathsByName; }
 
     public void setMouseEnterHandler(final EventHandler<MouseEvent> HANDLER) { mouseEnterHandler = HANDLER; }
     public void setMousePressHandler(final EventHandler<MouseEvent> HANDLER) { mousePressHandler = HANDLER; }
@@ -361,10 +534,22 @@ public class World extends Region {
     public void setLocationColor(final Color COLOR) { locationColor.setValue(COLOR); }
     public ObjectProperty<Color> locationColorProperty() { return (ObjectProperty<Color>) locationColor; }
 
+    public Color getRouteColor() { return routeColor.getValue(); }
+    public void setRouteColor(final Color COLOR) { routeColor.setValue(COLOR); }
+    public ObjectProperty<Color> routeColorProperty() { return (ObjectProperty<Color>) routeColor; }
+
     public boolean isHoverEnabled() { return hoverEnabled.get(); }
     public void setHoverEnabled(final boolean ENABLED) { hoverEnabled.set(ENABLED); }
     public BooleanProperty hoverEnabledProperty() { return hoverEnabled; }
 
+    /**
+     * If enabled, the name of the hovered country is shown in a tooltip.
+     * All countries share one tooltip that is created on the first hover.
+     */
+    public boolean isTooltipsEnabled() { return tooltipsEnabled.get(); }
+    public void setTooltipsEnabled(final boolean ENABLED) { tooltipsEnabled.set(ENABLED); }
+    public BooleanProperty tooltipsEnabledProperty() { return tooltipsEnabled; }
+
     public boolean isSelectionEnabled() { return selectionEnabled.get(); }
     public void setSelectionEnabled(final boolean ENABLED) { selectionEnabled.set(ENABLED); }
     public BooleanProperty selectionEnabledProperty() { return selectionEnabled; }
@@ -381,7 +566,101 @@ public class World extends Region {
     public void setScaleFactor(final double FACTOR) { scaleFactor.set(FACTOR); }
     public DoubleProperty scaleFactorProperty() { return scaleFactor; }
 
+    /**
+     * If enabled, a World that was created with Resolution.LO_RES switches the
+     * visible countries to HI_RES paths when the scale factor reaches the
+     * hiResThreshold and switches back to LO_RES (releasing the HI_RES paths)
+     * when the scale factor drops to the loResThreshold. The HI_RES geometry
+     * is loaded in the background as soon as level of detail is enabled.
+     * A World that was created with Resolution.HI_RES has no coarser paths to
+     * fall back to, for it this property means simplification instead: the
+     * countries in view show the simplified paths from
+     * GeometryCache.getForPixelScale() that match their size on screen, e.g.
+     * for thumbnails, and switch to more detailed ones when it is zoomed in.
+     * The thresholds are not used in that case. A level that is not cached yet
+     * is simplified in the background while the current paths stay.
+     * Both only apply to RenderMode.NODES.
+     */
+    public boolean isLevelOfDetailEnabled() { return levelOfDetailEnabled.get(); }
+    public void setLevelOfDetailEnabled(final boolean ENABLED) { levelOfDetailEnabled.set(ENABLED); }
+    public BooleanProperty levelOfDetailEnabledProperty() { return levelOfDetailEnabled; }
+
+    /**
+     * If enabled, the country paths of countries that are completely outside of
+     * the visible part of the map are made invisible after every zoom or pan,
+     * so that JavaFX skips them when rendering, picking and computing bounds.
+     * The check uses the bounds of the countries and a margin around the
+     * visible part. Only applies to RenderMode.NODES.
+     */
+    public boolean isCullingEnabled() { return cullingEnabled.get(); }
+    public void setCullingEnabled(final boolean ENABLED) { cullingEnabled.set(ENABLED); }
+    public BooleanProperty cullingEnabledProperty() { return cullingEnabled; }
+
+    /**
+     * The culling counters only apply to RenderMode.NODES, the culled counts
+     * are 0 and the visible counts are -1 in the other render modes.
+     * @return the number of countries that were hidden by the last culling pass
+     */
+    public int getCulledCountryCount() { return culledCountryCount; }
+    public int getVisibleCountryCount() { return RenderMode.NODES == renderMode ? countryPaths.size() - culledCountryCount : -1; }
+
+    /**
+     * @return the number of country paths that were hidden by the last culling pass
+     */
+    public int getCulledPathCount() { return culledPathCount; }
+    public int getVisiblePathCount() {
+        if (RenderMode.NODES != renderMode) return -1;
+        int pathCount = 0;
+        for (List<CountryPath> pathList : countryPaths.values()) { pathCount += pathList.size(); }
+        return pathCount - culledPathCount;
+    }
+
+    public double getHiResThreshold() { return hiResThreshold.get(); }
+    public void setHiResThreshold(final double THRESHOLD) { hiResThreshold.set(THRESHOLD); }
+    public DoubleProperty hiResThresholdProperty() { return hiResThreshold; }
+
+    public double getLoResThreshold() { return loResThreshold.get(); }
+    public void setLoResThreshold(final double THRESHOLD) { loResThreshold.set(THRESHOLD); }
+    public DoubleProperty loResThresholdProperty() { return loResThreshold; }
+
+    /**
+     * If enabled, locations are drawn into one canvas instead of creating a
+     * FontIcon with Tooltip and mouse handlers per location. The icon node,
+     * its tooltip and handlers are only created while the mouse hovers over
+     * a location. Recommended for more than a few thousand locations.
+     */
+    public boolean isLocationLayerEnabled() { return locationLayerEnabled.get(); }
+    public void setLocationLayerEnabled(final boolean ENABLED) { locationLayerEnabled.set(ENABLED); }
+    public BooleanProperty locationLayerEnabledProperty() { return locationLayerEnabled; }
+
+    /**
+     * If enabled, locations that are close to each other on screen are shown
+     * as one marker with the number of locations. The clusters are computed
+     * for all zoom levels at once in the background whenever the locations
+     * change, zooming and panning only select the visible clusters. Pressing
+     * a cluster zooms into it if zoom is enabled.
+     */
+    public boolean isClusteringEnabled() { return clusteringEnabled.get(); }
+    public void setClusteringEnabled(final boolean ENABLED) { clusteringEnabled.set(ENABLED); }
+    public BooleanProperty clusteringEnabledProperty() { return clusteringEnabled; }
+
+    public Resolution getResolution() { return resolution; }
+
+    public RenderMode getRenderMode() { return renderMode; }
+
+    /**
+     * Maximum number of bytes the cached tile images may occupy in
+     * RenderMode.TILES, the tiles that are visible are always kept.
+     * @return the size of the tile cache in bytes or 0 in other render modes
+     */
+    public long getTileCacheSize() { return countryRenderer instanceof CountryTiles ? ((CountryTiles) countryRenderer).getCacheSize() : 0; }
+    public void setTileCacheSize(final long BYTES) {
+        if (countryRenderer instanceof CountryTiles) { ((CountryTiles) countryRenderer).setCacheSize(BYTES); }
+    }
+
     public void resetZoom() {
+        camera.cancel();
+        panner.stopInertia();
         setScaleFactor(1.0);
         setTranslateX(0);
         setTranslateY(0);
@@ -390,18 +669,246 @@ public class World extends Region {
     }
 
     public Ikon getLocationIconCode() { return locationIconCode; }
-    public void setLocationIconCode(final Ikon ICON_CODE) { locationIconCode = ICON_CODE; }
+    public void setLocationIconCode(final Ikon ICON_CODE) {
+        locationIconCode = ICON_CODE;
+        if (null != locationLayer) { locationLayer.setDefaultIconCode(ICON_CODE); }
+    }
 
+    /**
+     * Location changes are applied like a batch(): right away on the FX
+     * application thread or while the World is not part of a scene, e.g. when
+     * it is built in Application.init(). Otherwise they are applied later on
+     * the FX application thread, getLocations() reflects them once the
+     * returned future of batch() or setLocations() completes.
+     */
     public void addLocation(final Location LOCATION) {
-        double x = (LOCATION.getLongitude() + 180) * (PREFERRED_WIDTH / 360) + MAP_OFFSET_X;
-        double y = (PREFERRED_HEIGHT / 2) - (PREFERRED_WIDTH * (Math.log(Math.tan((Math.PI / 4) + (Math.toRadians(LOCATION.getLatitude()) / 2)))) / (2 * Math.PI)) + MAP_OFFSET_Y;
+        batch(batch -> batch.add(LOCATION));
+    }
+    public void removeLocation(final Location LOCATION) {
+        batch(batch -> batch.remove(LOCATION));
+    }
+
+    public void addLocations(final Location... LOCATIONS) {
+        batch(batch -> batch.add(LOCATIONS));
+    }
+    public void clearLocations() {
+        batch(LocationBatch::clear);
+    }
 
+    /**
+     * Replaces all locations on the map with the given ones. Locations that
+     * are already on the map stay untouched, so only the difference has to
+     * be applied. The difference is computed when the batch is applied, see
+     * batch() for when that happens.
+     * @param LOCATIONS the locations that should be on the map
+     * @return completes with the number of added/removed locations and the duration once applied
+     */
+    public CompletableFuture<LocationBatch.Result> setLocations(final Collection<Location> LOCATIONS) {
+        final Set<Location> NEW_LOCATIONS = new HashSet<>(LOCATIONS);
+        return applyOnFxThread(() -> {
+            final LocationBatch BATCH = new LocationBatch();
+            for (Location location : getLocations()) {
+                if (!NEW_LOCATIONS.contains(location)) { BATCH.remove(location); }
+            }
+            for (Location location : NEW_LOCATIONS) {
+                if (!locationIndex.contains(location)) { BATCH.add(location); }
+            }
+            return BATCH;
+        });
+    }
+
+    /**
+     * Adds, updates and removes locations as one change, e.g.
+     * world.batch(batch -> batch.remove(oldLocation).add(newLocation));
+     * The changes are collected on the calling thread and applied right away
+     * if called on the FX application thread or while the World is not part
+     * of a scene. Otherwise they are applied on the FX application thread in
+     * one Platform.runLater() in the order of the calls, so reading the
+     * locations afterwards has to wait for the returned future. The children
+     * of the map are modified only once per batch instead of once per location.
+     * @param CHANGES consumer that collects the changes
+     * @return completes with the number of added/updated/removed locations and the duration once applied
+     */
+    public CompletableFuture<LocationBatch.Result> batch(final Consumer<LocationBatch> CHANGES) {
+        final LocationBatch BATCH = new LocationBatch();
+        CHANGES.accept(BATCH);
+        return applyOnFxThread(() -> BATCH);
+    }
+
+    /**
+     * @return all locations that are on the map
+     */
+    public List<Location> getLocations() {
+        return null == locationLayer ? new ArrayList<>(locations.keySet()) : locationLayer.getLocations();
+    }
+
+    // The location index, the location layer and the location nodes are only modified on the FX application thread
+    // once the World is part of a scene, before that the thread that builds the World owns it
+    private CompletableFuture<LocationBatch.Result> applyOnFxThread(final Supplier<LocationBatch> BATCH) {
+        if (Platform.isFxApplicationThread() || null == getScene()) { return CompletableFuture.completedFuture(apply(BATCH.get())); }
+        final CompletableFuture<LocationBatch.Result> FUTURE = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                FUTURE.complete(apply(BATCH.get()));
+            } catch (Throwable throwable) {
+                FUTURE.completeExceptionally(throwable);
+            }
+        });
+        return FUTURE;
+    }
+
+    private LocationBatch.Result apply(final LocationBatch BATCH) {
+        final long       START         = System.nanoTime();
+        final Set<Node>  REMOVED_NODES = new HashSet<>();
+        final List<Node> ADDED_NODES   = new ArrayList<>();
+        int              added         = 0;
+        int              updated       = 0;
+        int              removed       = 0;
+        if (BATCH.isCleared()) {
+            removed += locationIndex.size();
+            REMOVED_NODES.addAll(locations.values());
+            locationIndex.clear();
+            invalidateClusters();
+            if (null != locationLayer) {
+                locationLayer.clear();
+                setHoveredLocation(null);
+            }
+            locations.clear();
+        }
+        for (Map.Entry<Location, Boolean> change : BATCH.getChanges().entrySet()) {
+            Location location = change.getKey();
+            boolean  present  = locationIndex.contains(location);
+            Shape    oldShape = locations.get(location);
+            if (null != oldShape) { REMOVED_NODES.add(oldShape); }
+            if (change.getValue()) {
+                if (present) { updated++; } else { added++; }
+                attachLocation(location);
+                Shape newShape = locations.get(location);
+                if (null != newShape) { ADDED_NODES.add(newShape); }
+            } else if (present) {
+                removed++;
+                detachLocation(location);
+            }
+        }
+        updateLocationNodes(REMOVED_NODES, ADDED_NODES);
+        return new LocationBatch.Result(added, updated, removed, System.nanoTime() - START);
+    }
+
+    private void attachLocation(final Location LOCATION) {
+        double x = MapProjection.longitudeToX(LOCATION.getLongitude());
+        double y = MapProjection.latitudeToY(LOCATION.getLatitude());
+
+        locationIndex.add(LOCATION, x, y);
+        invalidateClusters();
+        if (null != locationLayer) {
+            locationLayer.add(LOCATION, x, y);
+            return;
+        }
+        Shape locationIcon = createLocationIcon(LOCATION, x, y);
+        if (!isShowingLocationNodes()) {
+            locationIcon.setManaged(false);
+            locationIcon.setVisible(false);
+        }
+        locations.put(LOCATION, locationIcon);
+    }
+    private void detachLocation(final Location LOCATION) {
+        locationIndex.remove(LOCATION);
+        invalidateClusters();
+        if (null != locationLayer) {
+            locationLayer.remove(LOCATION);
+            if (LOCATION == hoveredLocation) { setHoveredLocation(null); }
+        }
+        locations.remove(LOCATION);
+    }
+
+    /**
+     * Draws the great circle route between the two locations, the locations do
+     * not have to be on the map. Adding a route again only changes its weight
+     * which restyles the route without recomputing its arc. The line width of a
+     * route follows from its weight relative to the heaviest route.
+     * @param FROM start of the route
+     * @param TO end of the route
+     * @param WEIGHT weight of the route, e.g. the number of flights
+     * @throws IllegalArgumentException if one of the locations is null
+     */
+    public void addRoute(final Location FROM, final Location TO, final double WEIGHT) {
+        if (null == FROM || null == TO) { throw new IllegalArgumentException("Route needs a start and an end location"); }
+        if (null == routeLayer) {
+            routeLayer = new RouteLayer(PREFERRED_WIDTH, PREFERRED_HEIGHT, getRouteColor());
+            // Routes stay above the countries and below the locations
+            pane.getChildren().add(getCountryNodeCount(), routeLayer);
+            updateCanvasPixelScale();
+        }
+        routeLayer.set(FROM, TO, WEIGHT);
+    }
+    public void removeRoute(final Location FROM, final Location TO) {
+        if (null != routeLayer) { routeLayer.remove(FROM, TO); }
+    }
+    public void clearRoutes() {
+        if (null != routeLayer) { routeLayer.clear(); }
+    }
+
+    /**
+     * @return the weight of the route between the given locations or NaN if there is no such route
+     */
+    public double getRouteWeight(final Location FROM, final Location TO) {
+        return null == routeLayer ? Double.NaN : routeLayer.getWeight(FROM, TO);
+    }
+
+    public int getRouteCount() { return null == routeLayer ? 0 : routeLayer.size(); }
+
+    public void showLocations(final boolean SHOW) {
+        locationsVisible = SHOW;
+        if (null != clusterGroup) { clusterGroup.setVisible(SHOW); }
+        updateLocationVisibility();
+    }
+
+    /**
+     * Returns all locations within the given bounds in map coordinates, e.g.
+     * the bounds of the countries or the visible part of the map.
+     * @param BOUNDS bounds in map coordinates
+     * @return locations within the given bounds
+     */
+    public List<Location> findLocations(final Bounds BOUNDS) {
+        return locationIndex.find(BOUNDS.getMinX(), BOUNDS.getMinY(), BOUNDS.getMaxX(), BOUNDS.getMaxY());
+    }
+    public List<Location> findLocations(final double MIN_LATITUDE, final double MIN_LONGITUDE, final double MAX_LATITUDE, final double MAX_LONGITUDE) {
+        double[] upperLeft  = latLonToXY(MAX_LATITUDE, MIN_LONGITUDE);
+        double[] lowerRight = latLonToXY(MIN_LATITUDE, MAX_LONGITUDE);
+        return locationIndex.find(upperLeft[0], upperLeft[1], lowerRight[0], lowerRight[1]);
+    }
+
+    /**
+     * Returns the K locations that are closest to the given position on the map
+     * (distance in map coordinates), sorted by distance.
+     * @param LATITUDE latitude of the position
+     * @param LONGITUDE longitude of the position
+     * @param K max number of locations
+     * @return up to K locations sorted by distance
+     */
+    public List<Location> nearest(final double LATITUDE, final double LONGITUDE, final int K) {
+        double[] xy = latLonToXY(LATITUDE, LONGITUDE);
+        return locationIndex.nearest(xy[0], xy[1], K);
+    }
+
+    /**
+     * Returns the topmost location whose icon is at the given scene position.
+     * @param SCENE_X x coordinate in the scene e.g. MouseEvent.getSceneX()
+     * @param SCENE_Y y coordinate in the scene e.g. MouseEvent.getSceneY()
+     * @return location at the given position or null
+     */
+    public Location pickLocation(final double SCENE_X, final double SCENE_Y) {
+        Point2D point = pane.sceneToLocal(SCENE_X, SCENE_Y);
+        return locationIndex.pick(point.getX(), point.getY());
+    }
+
+    private Shape createLocationIcon(final Location LOCATION, final double X, final double Y) {
         FontIcon locationIcon = new FontIcon(null == LOCATION.getIconCode() ? locationIconCode : LOCATION.getIconCode());
         locationIcon.setIconSize(LOCATION.getIconSize());
         locationIcon.setTextOrigin(VPos.CENTER);
         locationIcon.setIconColor(null == LOCATION.getColor() ? getLocationColor() : LOCATION.getColor());
-        locationIcon.setX(x - LOCATION.getIconSize() * 0.5);
-        locationIcon.setY(y);
+        locationIcon.setX(X - LOCATION.getIconSize() * 0.5);
+        locationIcon.setY(Y);
 
         StringBuilder tooltipBuilder = new StringBuilder();
         if (!LOCATION.getName().isEmpty()) tooltipBuilder.append(LOCATION.getName());
@@ -418,22 +925,22 @@ public class World extends Region {
         if (null != LOCATION.getMouseReleaseHandler()) locationIcon.setOnMouseReleased(new WeakEventHandler<>(LOCATION.getMouseReleaseHandler()));
         if (null != LOCATION.getMouseExitHandler()) locationIcon.setOnMouseExited(new WeakEventHandler<>(LOCATION.getMouseExitHandler()));
 
-        locations.put(LOCATION, locationIcon);
+        return locationIcon;
     }
-    public void removeLocation(final Location LOCATION) {
-        locations.remove(LOCATION);
-    }
-
-    public void addLocations(final Location... LOCATIONS) {
-        for (Location location : LOCATIONS) { addLocation(location); }
-    }
-    public void clearLocations() { locations.clear(); }
 
-    public void showLocations(final boolean SHOW) {
-        for (Shape shape : locations.values()) {
-            shape.setManaged(SHOW);
-            shape.setVisible(SHOW);
-        }
+    /**
+     * Sets the value and color of the given country and repaints it. Can be
+     * called from any thread. Updates are collected without locking and
+     * applied once per pulse on the FX application thread where only the
+     * last update of every country is applied, so the cost depends on the
+     * number of changed countries and not on the number of updates.
+     * @param COUNTRY the country to update
+     * @param VALUE the new value of the country
+     * @param COLOR the new color of the country, null for the fill color
+     */
+    public void submit(final Country COUNTRY, final ValueObject VALUE, final Color COLOR) {
+        if (!countryUpdates.offer(COUNTRY, VALUE, COLOR)) return;
+        if (countryUpdatePending.compareAndSet(false, true)) { Platform.runLater(this::applyCountryUpdates); }
     }
 
     public void zoomToCountry(final Country COUNTRY) {
@@ -444,47 +951,166 @@ public class World extends Region {
         zoomToArea(getBounds(COUNTRY));
     }
 
+    /**
+     * Animates zoom and translation so that the given country fills the map.
+     * While the camera moves, the map is rendered from a cached bitmap and
+     * level of detail, canvas resolution and clusters are updated once it
+     * settles.
+     * @param COUNTRY the country to fly to
+     * @param DURATION duration of the animation
+     */
+    public void flyTo(final Country COUNTRY, final Duration DURATION) { flyTo(getBounds(COUNTRY), DURATION); }
+    public void flyTo(final CRegion REGION, final Duration DURATION) { flyTo(getBounds(REGION), DURATION); }
+    public void flyTo(final Bounds BOUNDS, final Duration DURATION) {
+        if (!isZoomEnabled() || null == BOUNDS) return;
+        double[] target = getZoomTarget(BOUNDS);
+        camera.fly(target[0], target[1], target[2], DURATION);
+    }
+
     public void zoomToRegion(final CRegion REGION) {
         if (!isZoomEnabled()) return;
         if (null != getSelectedCountry()) {
             setCountryFillAndStroke(getSelectedCountry(), getFillColor(), getStrokeColor());
         }
-        zoomToArea(getBounds(REGION.getCountries()));
+        zoomToArea(getBounds(REGION));
+    }
+
+    /**
+     * Creates a World without blocking the calling thread. The geometry is loaded
+     * and converted into path content on the given executor, the World itself is
+     * created on the FX application thread. The returned future completes as soon
+     * as the countries in PRIORITY (or the first batch of countries if PRIORITY is
+     * empty) are attached, the remaining countries are attached in batches, one
+     * batch per pulse.
+     * @param RESOLUTION resolution of the map
+     * @param EXECUTOR executor that is used for loading and parsing the geometry
+     * @param PRIORITY countries that should be attached first e.g. the visible region
+     * @return future that completes on the FX application thread
+     */
+    public static CompletableFuture<World> loadAsync(final Resolution RESOLUTION, final Executor EXECUTOR, final Collection<Country> PRIORITY) {
+        return loadAsync(RESOLUTION, RenderMode.NODES, EXECUTOR, PRIORITY);
+    }
+    public static CompletableFuture<World> loadAsync(final Resolution RESOLUTION, final RenderMode RENDER_MODE, final Executor EXECUTOR, final Collection<Country> PRIORITY) {
+        final CompletableFuture<World> FUTURE = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            final Geometry GEOMETRY = GeometryCache.get(RESOLUTION);
+            // Canvas and tiles draw straight from the geometry, there is no path content to prepare
+            if (RenderMode.NODES != RENDER_MODE) {
+                Platform.runLater(() -> {
+                    try {
+                        FUTURE.complete(new World(RESOLUTION, RENDER_MODE, GEOMETRY, false, EXECUTOR));
+                    } catch (Throwable throwable) {
+                        FUTURE.completeExceptionally(throwable);
+                    }
+                });
+                return;
+            }
+            final List<Map<Country, List<String>>> BATCHES = createContentBatches(GEOMETRY, PRIORITY);
+            Platform.runLater(() -> {
+                try {
+                    final World WORLD = new World(RESOLUTION, RENDER_MODE, GEOMETRY, false, EXECUTOR);
+                    WORLD.attachCountryPaths(BATCHES.get(0));
+                    FUTURE.complete(WORLD);
+                    new AnimationTimer() {
+                        private int batch = 1;
+                        @Override public void handle(final long NOW) {
+                            if (batch < BATCHES.size()) {
+                                WORLD.attachCountryPaths(BATCHES.get(batch++));
+                            } else {
+                                stop();
+                            }
+                        }
+                    }.start();
+                } catch (Throwable throwable) {
+                    FUTURE.completeExceptionally(throwable);
+                }
+            });
+        }, EXECUTOR).whenComplete((result, throwable) -> { if (null != throwable) FUTURE.completeExceptionally(throwable); });
+        return FUTURE;
     }
 
     public static double[] latLonToXY(final double LATITUDE, final double LONGITUDE) {
-        double x = (LONGITUDE + 180) * (PREFERRED_WIDTH / 360) + MAP_OFFSET_X;
-        double y = (PREFERRED_HEIGHT / 2) - (PREFERRED_WIDTH * (Math.log(Math.tan((Math.PI / 4) + (Math.toRadians(LATITUDE) / 2)))) / (2 * Math.PI)) + MAP_OFFSET_Y;
-        return new double[]{ x, y };
+        return new double[]{ MapProjection.longitudeToX(LONGITUDE), MapProjection.latitudeToY(LATITUDE) };
     }
 
-    private double[] getBounds(final Country... COUNTRIES) { return getBounds(Arrays.asList(COUNTRIES)); }
-    private double[] getBounds(final List<Country> COUNTRIES) {
-        double upperLeftX  = PREFERRED_WIDTH;
-        double upperLeftY  = PREFERRED_HEIGHT;
-        double lowerRightX = 0;
-        double lowerRightY = 0;
+    /**
+     * Inverse of latLonToXY(), use MapProjection for arrays of positions.
+     * @return latitude and longitude of the given position in map coordinates
+     */
+    public static double[] xyToLatLon(final double X, final double Y) {
+        return new double[]{ MapProjection.yToLatitude(Y), MapProjection.xToLongitude(X) };
+    }
+
+    /**
+     * Returns the bounds of the given country in map coordinates. The bounds
+     * are taken from the geometry when the World is created.
+     * @param COUNTRY the country
+     * @return the bounds of the country or null if it is not on the map
+     */
+    public Bounds getBounds(final Country COUNTRY) { return countryBounds.get(COUNTRY); }
+
+    /**
+     * Returns the bounds of all countries of the given region in map
+     * coordinates. The bounds are computed on the first call per region and
+     * then reused, so changing the countries of a CountryRegion afterwards
+     * will not be reflected.
+     * @param REGION the region
+     * @return the bounds of the region or null if none of its countries is on the map
+     */
+    public Bounds getBounds(final CRegion REGION) {
+        Bounds bounds = regionBounds.get(REGION);
+        if (null == bounds) {
+            bounds = union(REGION.getCountries());
+            if (null != bounds) { regionBounds.put(REGION, bounds); }
+        }
+        return bounds;
+    }
+
+    private Bounds union(final List<Country> COUNTRIES) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
         for (Country country : COUNTRIES) {
-            List<CountryPath> paths = countryPaths.get(country.getName());
-            for (int i = 0; i < paths.size(); i++) {
-                CountryPath path   = paths.get(i);
-                Bounds      bounds = path.getLayoutBounds();
-                upperLeftX  = Math.min(bounds.getMinX(), upperLeftX);
-                upperLeftY  = Math.min(bounds.getMinY(), upperLeftY);
-                lowerRightX = Math.max(bounds.getMaxX(), lowerRightX);
-                lowerRightY = Math.max(bounds.getMaxY(), lowerRightY);
-            }
+            Bounds bounds = countryBounds.get(country);
+            if (null == bounds) continue;
+            minX = Math.min(bounds.getMinX(), minX);
+            minY = Math.min(bounds.getMinY(), minY);
+            maxX = Math.max(bounds.getMaxX(), maxX);
+            maxY = Math.max(bounds.getMaxY(), maxY);
         }
-        return new double[]{ upperLeftX, upperLeftY, lowerRightX, lowerRightY };
+        return maxX < minX ? null : new BoundingBox(minX, minY, maxX - minX, maxY - minY);
     }
 
-    private void zoomToArea(final double[] BOUNDS) {
-        group.setTranslateX(0);
-        group.setTranslateY(0);
-        double      areaWidth   = BOUNDS[2] - BOUNDS[0];
-        double      areaHeight  = BOUNDS[3] - BOUNDS[1];
-        double      areaCenterX = BOUNDS[0] + areaWidth * 0.5;
-        double      areaCenterY = BOUNDS[1] + areaHeight * 0.5;
+    private static Map<Country, Bounds> createCountryBounds(final Geometry GEOMETRY) {
+        Map<Country, Bounds> countryBounds = new EnumMap<>(Country.class);
+        for (CountryGeometry countryGeometry : GEOMETRY.getCountryGeometries()) {
+            countryBounds.put(countryGeometry.getCountry(), new BoundingBox(countryGeometry.getMinX(), countryGeometry.getMinY(),
+                                                                            countryGeometry.getMaxX() - countryGeometry.getMinX(),
+                                                                            countryGeometry.getMaxY() - countryGeometry.getMinY()));
+        }
+        return countryBounds;
+    }
+
+    private void zoomToArea(final Bounds BOUNDS) {
+        if (null == BOUNDS) return;
+        camera.cancel();
+        panner.stopInertia();
+        double[] target = getZoomTarget(BOUNDS);
+        setScaleFactor(target[0]);
+        // The zoom target is relative to the unpanned World, like in flyTo the drag pan offset is reset
+        setTranslateX(0);
+        setTranslateY(0);
+        group.setTranslateX(target[1]);
+        group.setTranslateY(target[2]);
+    }
+
+    // Returns the scale factor and the translation of the group that show the given area
+    private double[] getZoomTarget(final Bounds BOUNDS) {
+        double      areaWidth   = BOUNDS.getWidth();
+        double      areaHeight  = BOUNDS.getHeight();
+        double      areaCenterX = BOUNDS.getMinX() + areaWidth * 0.5;
+        double      areaCenterY = BOUNDS.getMinY() + areaHeight * 0.5;
         Orientation orientation = areaWidth < areaHeight ? Orientation.VERTICAL : Orientation.HORIZONTAL;
         double sf = 1.0;
         switch(orientation) {
@@ -493,7 +1119,7 @@ public class World extends Region {
         }
 
         /*
-        Rectangle bounds = new Rectangle(BOUNDS[0], BOUNDS[1], areaWidth, areaHeight);
+        Rectangle bounds = new Rectangle(BOUNDS.getMinX(), BOUNDS.getMinY(), areaWidth, areaHeight);
         bounds.setFill(Color.TRANSPARENT);
         bounds.setStroke(Color.RED);
         bounds.setStrokeWidth(0.5);
@@ -501,9 +1127,47 @@ public class World extends Region {
         group.getChildren().add(bounds);
         */
 
-        setScaleFactor(sf);
-        group.setTranslateX(width * 0.5 - (areaCenterX));
-        group.setTranslateY(height * 0.5 - (areaCenterY));
+        return new double[] { sf, width * 0.5 - areaCenterX, height * 0.5 - areaCenterY };
+    }
+
+    // Drag panning is available whenever zoom is enabled, touch drags arrive as synthesized mouse events
+    private void handlePanEvent(final MouseEvent EVENT) {
+        if (!isZoomEnabled()) return;
+        final EventType TYPE = EVENT.getEventType();
+        if (MouseEvent.MOUSE_PRESSED == TYPE) {
+            if (EVENT.isPrimaryButtonDown()) { panner.press(EVENT); }
+        } else if (MouseEvent.MOUSE_DRAGGED == TYPE) {
+            panner.drag(EVENT);
+        } else if (MouseEvent.MOUSE_RELEASED == TYPE) {
+            // A drag is no click, the country under the mouse must not see the release
+            if (panner.release()) { EVENT.consume(); }
+        } else if (MouseEvent.MOUSE_CLICKED == TYPE) {
+            if (panner.wasDragged()) { EVENT.consume(); }
+        }
+    }
+
+    // Moves the map by the given distance in parent coordinates but keeps it inside the area of the World
+    private boolean[] pan(final double DELTA_X, final double DELTA_Y) {
+        setTranslateX(getTranslateX() + DELTA_X);
+        setTranslateY(getTranslateY() + DELTA_Y);
+        final Bounds MAP         = localToParent(group.localToParent(pane.localToParent(new BoundingBox(0, 0, PREFERRED_WIDTH, PREFERRED_HEIGHT))));
+        final double CORRECTION_X = panCorrection(MAP.getMinX(), MAP.getMaxX(), getLayoutX(), getLayoutX() + getWidth());
+        final double CORRECTION_Y = panCorrection(MAP.getMinY(), MAP.getMaxY(), getLayoutY(), getLayoutY() + getHeight());
+        if (CORRECTION_X != 0) { setTranslateX(getTranslateX() + CORRECTION_X); }
+        if (CORRECTION_Y != 0) { setTranslateY(getTranslateY() + CORRECTION_Y); }
+        return new boolean[] { CORRECTION_X != 0, CORRECTION_Y != 0 };
+    }
+
+    // A map larger than the view has to cover it, a smaller one has to stay inside of it
+    private static double panCorrection(final double MAP_MIN, final double MAP_MAX, final double VIEW_MIN, final double VIEW_MAX) {
+        if (MAP_MAX - MAP_MIN >= VIEW_MAX - VIEW_MIN) {
+            if (MAP_MIN > VIEW_MIN) return VIEW_MIN - MAP_MIN;
+            if (MAP_MAX < VIEW_MAX) return VIEW_MAX - MAP_MAX;
+        } else {
+            if (MAP_MIN < VIEW_MIN) return VIEW_MIN - MAP_MIN;
+            if (MAP_MAX > VIEW_MAX) return VIEW_MAX - MAP_MAX;
+        }
+        return 0;
     }
 
     private void setPivot(final double X, final double Y) {
@@ -512,16 +1176,14 @@ public class World extends Region {
     }
 
     private void handleMouseEvent(final MouseEvent EVENT, final EventHandler<MouseEvent> HANDLER) {
-        final CountryPath       COUNTRY_PATH = (CountryPath) EVENT.getSource();
-        final String            COUNTRY_NAME = COUNTRY_PATH.getName();
-        final Country           COUNTRY      = Country.valueOf(COUNTRY_NAME);
-        final List<CountryPath> PATHS        = countryPaths.get(COUNTRY_NAME);
+        final Country COUNTRY = ((CountryPath) EVENT.getSource()).getCountry();
 
         final EventType TYPE = EVENT.getEventType();
         if (MOUSE_ENTERED == TYPE) {
+            if (RenderMode.NODES == renderMode) { setTooltip((CountryPath) EVENT.getSource(), COUNTRY); }
             if (isHoverEnabled()) {
             Color color = isSelectionEnabled() && COUNTRY.equals(getSelectedCountry()) ? getSelectedColor() : getHoverColor();
-            for (SVGPath path : PATHS) { path.setFill(color); }
+            setCountryFill(COUNTRY, color);
             }
         } else if (MOUSE_PRESSED == TYPE) {
             if (isSelectionEnabled()) {
@@ -532,10 +1194,10 @@ public class World extends Region {
                 } else {
                     color = null == getSelectedCountry().getColor() ? getFillColor() : getSelectedCountry().getColor();
                 }
-                for (SVGPath path : countryPaths.get(getSelectedCountry().getName())) { path.setFill(color); }
+                setCountryFill(getSelectedCountry(), color);
             } else {
                 if (isHoverEnabled()) {
-                for (SVGPath path : PATHS) { path.setFill(getPressedColor()); }
+                setCountryFill(COUNTRY, getPressedColor());
             }
             }
         } else if (MOUSE_RELEASED == TYPE) {
@@ -553,37 +1215,344 @@ public class World extends Region {
                 color = getHoverColor();
             }
             if (isHoverEnabled()) {
-            for (SVGPath path : PATHS) { path.setFill(color); }
+            setCountryFill(COUNTRY, color);
             }
         } else if (MOUSE_EXITED == TYPE) {
+            if (EVENT.getSource() == tooltipNode) { setTooltip(null, null); }
             if (isHoverEnabled()) {
             Color color = isSelectionEnabled() && COUNTRY.equals(getSelectedCountry()) ? getSelectedColor() : getFillColor();
-            for (SVGPath path : PATHS) {
-                path.setFill(null == COUNTRY.getColor() || COUNTRY == getSelectedCountry() ? color : COUNTRY.getColor());
-            }
+            setCountryFill(COUNTRY, null == COUNTRY.getColor() || COUNTRY == getSelectedCountry() ? color : COUNTRY.getColor());
         }
         }
 
         if (null != HANDLER) HANDLER.handle(EVENT);
     }
 
+    // Hit tests the canvas and translates the events into the events the CountryPaths would get
+    private void handleCanvasMouseEvent(final MouseEvent EVENT) {
+        final EventType TYPE    = EVENT.getEventType();
+        final Point2D   POINT   = countryRenderer.getNode().localToParent(EVENT.getX(), EVENT.getY());
+        final Country   COUNTRY = MOUSE_EXITED == TYPE ? null : countryRenderer.getCountryAt(POINT.getX(), POINT.getY());
+        if (COUNTRY != hoveredCountry) {
+            if (null != hoveredCountry) { fireCanvasMouseEvent(EVENT, hoveredCountry, MOUSE_EXITED, mouseExitHandler); }
+            hoveredCountry = COUNTRY;
+            setTooltip(countryRenderer.getNode(), COUNTRY);
+            if (null != COUNTRY) {
+                fireCanvasMouseEvent(EVENT, COUNTRY, MOUSE_ENTERED, mouseEnterHandler);
+            }
+        }
+        if (null == hoveredCountry) return;
+        if (MOUSE_PRESSED == TYPE) {
+            fireCanvasMouseEvent(EVENT, hoveredCountry, MOUSE_PRESSED, mousePressHandler);
+        } else if (MOUSE_RELEASED == TYPE) {
+            fireCanvasMouseEvent(EVENT, hoveredCountry, MOUSE_RELEASED, mouseReleaseHandler);
+        }
+    }
+    private void fireCanvasMouseEvent(final MouseEvent EVENT, final Country COUNTRY, final EventType<MouseEvent> TYPE, final EventHandler<MouseEvent> HANDLER) {
+        final CountryPath SOURCE = getCanvasEventSource(COUNTRY);
+        handleMouseEvent(EVENT.copyFor(SOURCE, SOURCE, TYPE), HANDLER);
+    }
+    private CountryPath getCanvasEventSource(final Country COUNTRY) {
+        return canvasEventSources.computeIfAbsent(COUNTRY, CountryPath::new);
+    }
+
+    // Shows the name of the country in the shared tooltip on the given node, null removes the tooltip
+    private void setTooltip(final Node NODE, final Country COUNTRY) {
+        final boolean SHOW = null != NODE && null != COUNTRY && isTooltipsEnabled();
+        if (null != tooltipNode && (!SHOW || NODE != tooltipNode)) {
+            installTooltip(tooltipNode, null);
+            tooltipNode = null;
+        }
+        if (!SHOW) return;
+        if (null == tooltip) { tooltip = new Tooltip(); }
+        tooltip.setText(COUNTRY.getDisplayName());
+        if (NODE == tooltipNode) return;
+        installTooltip(NODE, tooltip);
+        tooltipNode = NODE;
+    }
+    private void installTooltip(final Node NODE, final Tooltip TOOLTIP) {
+        if (NODE instanceof CountryPath) {
+            ((CountryPath) NODE).setTooltip(TOOLTIP);
+        } else if (null == TOOLTIP) {
+            Tooltip.uninstall(NODE, tooltip);
+        } else {
+            Tooltip.install(NODE, TOOLTIP);
+        }
+    }
+
+    // Moves all locations between the location nodes and the location layer
+    private void setLocationLayer(final boolean ENABLED) {
+        if (ENABLED == (null != locationLayer)) return;
+        final List<Location> CURRENT = getLocations();
+        batch(LocationBatch::clear);
+        if (ENABLED) {
+            locationLayer = new LocationLayer(PREFERRED_WIDTH, PREFERRED_HEIGHT, locationIconCode, getLocationColor());
+            locationLayer.setVisible(isShowingLocationNodes());
+            pane.getChildren().add(locationLayer);
+            pane.addEventFilter(MouseEvent.MOUSE_MOVED, _locationLayerMouseHandler);
+            pane.addEventFilter(MouseEvent.MOUSE_EXITED, _locationLayerMouseHandler);
+            updateCanvasPixelScale();
+        } else {
+            pane.removeEventFilter(MouseEvent.MOUSE_MOVED, _locationLayerMouseHandler);
+            pane.removeEventFilter(MouseEvent.MOUSE_EXITED, _locationLayerMouseHandler);
+            pane.getChildren().remove(locationLayer);
+            locationLayer = null;
+        }
+        batch(batch -> batch.addAll(CURRENT));
+    }
+
+    private void handleLocationLayerMouseEvent(final MouseEvent EVENT) {
+        // The hovered icon removes itself when the mouse leaves it
+        if (null != hoveredLocationIcon && EVENT.getTarget() == hoveredLocationIcon) return;
+        if (MouseEvent.MOUSE_EXITED == EVENT.getEventType()) {
+            if (EVENT.getTarget() == pane) { setHoveredLocation(null); }
+            return;
+        }
+        if (!locationLayer.isVisible()) return;
+        // The event filter is registered on the pane, so the coordinates are map coordinates
+        setHoveredLocation(locationIndex.pick(EVENT.getX(), EVENT.getY()));
+    }
+
+    // Creates the icon node with tooltip and handlers for the hovered location only
+    private void setHoveredLocation(final Location LOCATION) {
+        if (LOCATION == hoveredLocation) return;
+        if (null != hoveredLocationIcon) { pane.getChildren().remove(hoveredLocationIcon); }
+        hoveredLocation     = LOCATION;
+        hoveredLocationIcon = null;
+        if (null == LOCATION) return;
+        double[] xy = latLonToXY(LOCATION.getLatitude(), LOCATION.getLongitude());
+        final Shape ICON = createLocationIcon(LOCATION, xy[0], xy[1]);
+        ICON.addEventHandler(MouseEvent.MOUSE_EXITED, evt -> { if (ICON == hoveredLocationIcon) { setHoveredLocation(null); } });
+        hoveredLocationIcon = ICON;
+        pane.getChildren().add(ICON);
+    }
+
+    private void applyCountryUpdates() {
+        // Reset first, updates that arrive while draining schedule the next run
+        countryUpdatePending.set(false);
+        countryUpdates.drain(update -> {
+            update.COUNTRY.setValue(update.VALUE);
+            setCountryColor(update.COUNTRY, update.COLOR);
+        });
+    }
+
+    // Sets the color of the country and repaints it, the selected country keeps its selection color
+    void setCountryColor(final Country COUNTRY, final Color COLOR) {
+        COUNTRY.setColor(COLOR);
+        if (isSelectionEnabled() && COUNTRY == getSelectedCountry()) return;
+        setCountryFill(COUNTRY, null == COLOR ? getFillColor() : COLOR);
+    }
+
+    // Location nodes and the location layer are hidden while the clusters are shown
+    private boolean isShowingLocationNodes() { return locationsVisible && null == clusterGroup; }
+
+    private void updateLocationVisibility() {
+        final boolean SHOW = isShowingLocationNodes();
+        for (Shape shape : locations.values()) {
+            shape.setManaged(SHOW);
+            shape.setVisible(SHOW);
+        }
+        if (null != locationLayer) { locationLayer.setVisible(SHOW); }
+        if (!SHOW) { setHoveredLocation(null); }
+    }
+
+    private void setClustering(final boolean ENABLED) {
+        if (ENABLED == (null != clusterGroup)) return;
+        if (ENABLED) {
+            clusterGroup = new Group();
+            clusterGroup.setVisible(locationsVisible);
+            pane.getChildren().add(clusterGroup);
+            clustersDirty = true;
+            scheduleViewportUpdate();
+        } else {
+            pane.getChildren().remove(clusterGroup);
+            clusterGroup = null;
+            clusterer    = null;
+            clusterGeneration++;
+        }
+        updateLocationVisibility();
+    }
+
+    private void invalidateClusters() {
+        if (null == clusterGroup || clustersDirty) return;
+        clustersDirty = true;
+        scheduleViewportUpdate();
+    }
+
+    // Rebuilds the cluster hierarchy in the background if the locations changed and shows the visible clusters
+    private void updateClusters() {
+        if (null == clusterGroup) return;
+        if (clustersDirty) {
+            clustersDirty = false;
+            final List<Location> CURRENT    = getLocations();
+            final Location[]     LOCATIONS  = CURRENT.toArray(new Location[0]);
+            final double[]       XS         = new double[LOCATIONS.length];
+            final double[]       YS         = new double[LOCATIONS.length];
+            final int            GENERATION = ++clusterGeneration;
+            for (int i = 0; i < LOCATIONS.length; i++) {
+                XS[i] = MapProjection.longitudeToX(LOCATIONS[i].getLongitude());
+                YS[i] = MapProjection.latitudeToY(LOCATIONS[i].getLatitude());
+            }
+            CompletableFuture.supplyAsync(() -> new LocationClusterer(LOCATIONS, XS, YS, PREFERRED_WIDTH, PREFERRED_HEIGHT, CLUSTER_RADIUS), executor)
+                             .whenComplete((CLUSTERER, THROWABLE) -> Platform.runLater(() -> {
+                                 if (GENERATION != clusterGeneration) return;
+                                 if (null != THROWABLE) {
+                                     // The former clusters stay, the next viewport update tries again
+                                     clustersDirty = true;
+                                     throw new IllegalStateException("Clustering the locations failed", THROWABLE);
+                                 }
+                                 clusterer = CLUSTERER;
+                                 showClusters();
+                             }));
+        }
+        // Keep showing the former clusters until the new ones are ready
+        if (null != clusterer) { showClusters(); }
+    }
+
+    private void showClusters() {
+        final double     PIXEL_SCALE = pane.getScaleX() * (isZoomEnabled() ? getScaleFactor() : 1.0);
+        final double     MARGIN      = CLUSTER_RADIUS / PIXEL_SCALE;
+        final double[]   VISIBLE     = getVisibleMapBounds();
+        final List<Node> MARKERS     = new ArrayList<>();
+        for (LocationClusterer.Cluster cluster : clusterer.find(LocationClusterer.getLevel(PIXEL_SCALE), VISIBLE[0] - MARGIN, VISIBLE[1] - MARGIN, VISIBLE[2] + MARGIN, VISIBLE[3] + MARGIN)) {
+            MARKERS.add(1 == cluster.COUNT ? createLocationIcon(cluster.LOCATION, cluster.X, cluster.Y) : createClusterMarker(cluster, PIXEL_SCALE));
+        }
+        clusterGroup.getChildren().setAll(MARKERS);
+    }
+
+    // Circle with the number of locations that keeps its size on screen
+    private Node createClusterMarker(final LocationClusterer.Cluster CLUSTER, final double PIXEL_SCALE) {
+        final double RADIUS = 8 + 3 * Math.log10(CLUSTER.COUNT);
+        Circle circle = new Circle(0, 0, RADIUS);
+        circle.setFill(Color.color(getLocationColor().getRed(), getLocationColor().getGreen(), getLocationColor().getBlue(), 0.7));
+        circle.setStroke(getLocationColor());
+
+        Text text = new Text(Integer.toString(CLUSTER.COUNT));
+        text.setFont(Font.font(RADIUS * 0.8));
+        text.setFill(Color.WHITE);
+        text.setTextOrigin(VPos.CENTER);
+        text.setX(-text.getLayoutBounds().getWidth() * 0.5);
+
+        Group marker = new Group(circle, text);
+        marker.setLayoutX(CLUSTER.X);
+        marker.setLayoutY(CLUSTER.Y);
+        marker.setScaleX(1 / PIXEL_SCALE);
+        marker.setScaleY(1 / PIXEL_SCALE);
+        marker.setCursor(Cursor.HAND);
+        marker.setOnMousePressed(evt -> {
+            if (!isZoomEnabled()) return;
+            // Padding keeps the outermost locations of the cluster away from the edge
+            double padding = Math.max(1, Math.max(CLUSTER.MAX_X - CLUSTER.MIN_X, CLUSTER.MAX_Y - CLUSTER.MIN_Y) * 0.1);
+            flyTo(new BoundingBox(CLUSTER.MIN_X - padding, CLUSTER.MIN_Y - padding, CLUSTER.MAX_X - CLUSTER.MIN_X + 2 * padding, CLUSTER.MAX_Y - CLUSTER.MIN_Y + 2 * padding), CLUSTER_FLIGHT);
+        });
+        return marker;
+    }
+
+    private void setCountryFill(final Country COUNTRY, final Color FILL) {
+        if (null != countryRenderer) {
+            countryRenderer.setFill(COUNTRY, FILL);
+            return;
+        }
+        List<CountryPath> paths = countryPaths.get(COUNTRY);
+        if (null == paths) return;
+        for (int i = 0; i < paths.size(); i++) { paths.get(i).setFill(FILL); }
+    }
+
     private void setFillAndStroke() {
-        countryPaths.keySet().forEach(name -> {
-            Country country = Country.valueOf(name);
+        if (null != countryRenderer) {
+            countryRenderer.setStroke(getStrokeColor());
+            for (Country country : geometry.getCountries()) { countryRenderer.setFill(country, null == country.getColor() ? getFillColor() : country.getColor()); }
+            return;
+        }
+        for (Country country : countryPaths.keySet()) {
             setCountryFillAndStroke(country, null == country.getColor() ? getFillColor() : country.getColor(), getStrokeColor());
-        });
+        }
     }
     private void setCountryFillAndStroke(final Country COUNTRY, final Color FILL, final Color STROKE) {
-        List<CountryPath> paths = countryPaths.get(COUNTRY.getName());
+        if (null != countryRenderer) {
+            // The canvas uses one stroke color for all countries
+            countryRenderer.setFill(COUNTRY, FILL);
+            return;
+        }
+        List<CountryPath> paths = countryPaths.get(COUNTRY);
+        if (null == paths) return;
         for (CountryPath path : paths) {
             path.setFill(FILL);
             path.setStroke(STROKE);
         }
     }
 
-    private void addShapesToScene(final Shape... SHAPES) {
-        addShapesToScene(Arrays.asList(SHAPES));
+    private static List<Map<Country, List<String>>> createContentBatches(final Geometry GEOMETRY, final Collection<Country> PRIORITY) {
+        List<Map<Country, List<String>>> batches = new ArrayList<>();
+        Map<Country, List<String>>       batch   = new EnumMap<>(Country.class);
+        for (Country country : PRIORITY) {
+            CountryGeometry countryGeometry = GEOMETRY.get(country);
+            if (null != countryGeometry) { batch.put(country, createContents(countryGeometry)); }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+            batch = new EnumMap<>(Country.class);
+        }
+        for (CountryGeometry countryGeometry : GEOMETRY.getCountryGeometries()) {
+            if (PRIORITY.contains(countryGeometry.getCountry())) continue;
+            batch.put(countryGeometry.getCountry(), createContents(countryGeometry));
+            if (batch.size() == LOAD_BATCH_SIZE) {
+                batches.add(batch);
+                batch = new EnumMap<>(Country.class);
+            }
+        }
+        if (!batch.isEmpty() || batches.isEmpty()) { batches.add(batch); }
+        return batches;
+    }
+
+    private static List<String> createContents(final CountryGeometry COUNTRY_GEOMETRY) {
+        List<String> contents = new ArrayList<>(COUNTRY_GEOMETRY.getPathCount());
+        for (int i = 0; i < COUNTRY_GEOMETRY.getPathCount(); i++) { contents.add(COUNTRY_GEOMETRY.toSvgContent(i)); }
+        return contents;
     }
+
+    private void attachCountryPaths(final Map<Country, List<String>> CONTENTS) {
+        // Country paths stay below the location shapes that might have been added already
+        int index = getCountryNodeCount();
+        List<CountryPath> attached = new ArrayList<>();
+        CONTENTS.forEach((country, contents) -> {
+            List<CountryPath> pathList = new ArrayList<>(contents.size());
+            for (String content : contents) { pathList.add(new CountryPath(country, content)); }
+            initCountryPaths(country, pathList);
+            countryPaths.put(country, pathList);
+            attached.addAll(pathList);
+        });
+        pane.getChildren().addAll(index, attached);
+        // The visible ones of the attached countries are switched to the current simplification with the next viewport update
+        if (null != simplifiedGeometry) { scheduleViewportUpdate(); }
+    }
+
+    // The country nodes are the first children of the pane
+    private int getCountryNodeCount() {
+        if (null != countryRenderer) { return 1; }
+        int count = 0;
+        for (List<CountryPath> pathList : countryPaths.values()) { count += pathList.size(); }
+        return count;
+    }
+
+    // Applies the node changes of a batch with one modification of the children
+    private void updateLocationNodes(final Set<Node> REMOVED, final List<Node> ADDED) {
+        final ObservableList<Node> CHILDREN = pane.getChildren();
+        final boolean              ADD      = !ADDED.isEmpty() && null != getScene();
+        if (REMOVED.isEmpty()) {
+            if (ADD) { CHILDREN.addAll(ADDED); }
+        } else if (!ADD) {
+            CHILDREN.removeAll(REMOVED);
+        } else {
+            List<Node> children = new ArrayList<>(CHILDREN.size() + ADDED.size());
+            for (Node child : CHILDREN) {
+                if (!REMOVED.contains(child)) { children.add(child); }
+            }
+            children.addAll(ADDED);
+            CHILDREN.setAll(children);
+        }
+    }
+
     private void addShapesToScene(final Collection<Shape> SHAPES) {
         if (null == getScene()) return;
         Platform.runLater(() -> pane.getChildren().addAll(SHAPES));
@@ -595,26 +1564,205 @@ public class World extends Region {
         return VALUE;
     }
 
-    private Properties readProperties(final String FILE_NAME) {
-        final ClassLoader LOADER     = Thread.currentThread().getContextClassLoader();
-        final Properties  PROPERTIES = new Properties();
-        try(InputStream resourceStream = LOADER.getResourceAsStream(FILE_NAME)) {
-            PROPERTIES.load(resourceStream);
-        } catch (IOException exception) {
-            System.out.println(exception);
+    // JavaFX has no public shape that takes coordinates without boxing or one object per point, SVGPath content is the leanest way
+    static Map<Country, List<CountryPath>> createCountryPaths(final Geometry GEOMETRY) {
+        Map<Country, List<CountryPath>> countryPaths = new EnumMap<>(Country.class);
+        for (CountryGeometry countryGeometry : GEOMETRY.getCountryGeometries()) {
+            countryPaths.put(countryGeometry.getCountry(), createCountryPaths(countryGeometry));
         }
-        return PROPERTIES;
+        return countryPaths;
+    }
+    private static List<CountryPath> createCountryPaths(final CountryGeometry COUNTRY_GEOMETRY) {
+        Country           country  = COUNTRY_GEOMETRY.getCountry();
+        List<CountryPath> pathList = new ArrayList<>(COUNTRY_GEOMETRY.getPathCount());
+        for (int i = 0; i < COUNTRY_GEOMETRY.getPathCount(); i++) { pathList.add(new CountryPath(country, COUNTRY_GEOMETRY.toSvgContent(i))); }
+        return pathList;
     }
 
-    private Map<String, List<CountryPath>> createCountryPaths() {
-        Map<String, List<CountryPath>> countryPaths = new HashMap<>();
-        resolutionProperties.forEach((key, value) -> {
-            String            name     = key.toString();
-            List<CountryPath> pathList = new ArrayList<>();
-            for (String path : value.toString().split(";")) { pathList.add(new CountryPath(name, path)); }
-            countryPaths.put(name, pathList);
+    // Coalesces zoom and pan changes into one viewport update per pulse
+    private void scheduleViewportUpdate() {
+        if (camera.isMoving()) {
+            viewportUpdateDeferred = true;
+            return;
+        }
+        if (viewportUpdatePending) return;
+        viewportUpdatePending = true;
+        Platform.runLater(() -> {
+            viewportUpdatePending = false;
+            updateCanvasPixelScale();
+            updateLevelOfDetail();
+            updateCulling();
+            updateClusters();
         });
-        return countryPaths;
+    }
+
+    // Renders the canvas or the tiles with as many pixels as they cover on screen
+    private void updateCanvasPixelScale() {
+        double pixelScale = getPixelScale();
+        if (null != countryRenderer) {
+            double[] visible = getVisibleMapBounds();
+            countryRenderer.setPixelScale(pixelScale);
+            countryRenderer.setViewport(visible[0], visible[1], visible[2], visible[3]);
+        }
+        if (null != locationLayer) { locationLayer.setPixelScale(pixelScale); }
+        if (null != routeLayer) { routeLayer.setPixelScale(pixelScale); }
+    }
+
+    // Screen pixels per map unit
+    private double getPixelScale() { return pane.getScaleX() * (isZoomEnabled() ? getScaleFactor() : 1.0); }
+
+    private void updateLevelOfDetail() {
+        if (RenderMode.NODES != renderMode) return;
+        if (Resolution.HI_RES == resolution) {
+            updateSimplification();
+            return;
+        }
+        if (!isLevelOfDetailEnabled()) {
+            detailGeometry = null;
+        } else if (null == detailGeometry) {
+            loadDetailGeometry();
+        }
+        double scale = isZoomEnabled() ? getScaleFactor() : 1.0;
+        // The LO_RES paths stay until the HI_RES geometry has been loaded in the background
+        if (isLevelOfDetailEnabled() && scale >= getHiResThreshold() && null != detailGeometry) {
+            double[] visible = getVisibleMapBounds();
+            for (CountryGeometry countryGeometry : detailGeometry.getCountryGeometries()) {
+                Country country = countryGeometry.getCountry();
+                if (detailCountries.contains(country) ||
+                    countryGeometry.getMaxX() < visible[0] || countryGeometry.getMinX() > visible[2] ||
+                    countryGeometry.getMaxY() < visible[1] || countryGeometry.getMinY() > visible[3]) { continue; }
+                replaceCountryPaths(country, countryGeometry);
+                detailCountries.add(country);
+            }
+        } else if (!detailCountries.isEmpty() && (!isLevelOfDetailEnabled() || scale <= getLoResThreshold())) {
+            for (Country country : detailCountries) { replaceCountryPaths(country, geometry.get(country)); }
+            detailCountries.clear();
+        }
+    }
+
+    // Loads the HI_RES geometry once level of detail is enabled, so that zooming in does not wait for it
+    private void loadDetailGeometry() {
+        if (detailGeometryLoading) return;
+        detailGeometryLoading = true;
+        CompletableFuture.supplyAsync(() -> GeometryCache.get(Resolution.HI_RES), executor)
+                         .whenComplete((GEOMETRY, THROWABLE) -> Platform.runLater(() -> {
+                             detailGeometryLoading = false;
+                             if (null == GEOMETRY || !isLevelOfDetailEnabled()) return;
+                             detailGeometry = GEOMETRY;
+                             scheduleViewportUpdate();
+                         }));
+    }
+
+    private void updateCulling() {
+        if (RenderMode.NODES != renderMode) return;
+        if (!isCullingEnabled()) {
+            cull(null);
+            return;
+        }
+        cull(getCullingBounds());
+    }
+
+    // The visible part of the map plus a margin in map coordinates, countries outside of it are culled
+    private Bounds getCullingBounds() {
+        double[] visible = getVisibleMapBounds();
+        double   marginX = (visible[2] - visible[0]) * CULLING_MARGIN;
+        double   marginY = (visible[3] - visible[1]) * CULLING_MARGIN;
+        return new BoundingBox(visible[0] - marginX, visible[1] - marginY, visible[2] - visible[0] + 2 * marginX, visible[3] - visible[1] + 2 * marginY);
+    }
+
+    // Hides the paths of all countries outside of the given bounds in map coordinates, null shows all
+    private void cull(final Bounds VISIBLE) {
+        int culledCountries = 0;
+        int culledPaths     = 0;
+        for (Map.Entry<Country, List<CountryPath>> entry : countryPaths.entrySet()) {
+            Bounds  bounds  = countryBounds.get(entry.getKey());
+            boolean visible = null == VISIBLE || null == bounds || VISIBLE.intersects(bounds);
+            for (CountryPath path : entry.getValue()) {
+                if (path.isVisible() != visible) { path.setVisible(visible); }
+            }
+            if (!visible) {
+                culledCountries++;
+                culledPaths += entry.getValue().size();
+            }
+        }
+        culledCountryCount = culledCountries;
+        culledPathCount    = culledPaths;
+    }
+
+    // Switches the countries in view to the level of simplification that fits the pixel scale. A level that
+    // is not cached yet is simplified in the background while the current paths stay, countries out of view
+    // keep their paths until they come into view.
+    private void updateSimplification() {
+        double tolerance = getSimplificationTolerance();
+        if (tolerance != simplifiedTolerance) {
+            Geometry target = 0 == tolerance ? null : GeometryCache.getIfCached(tolerance);
+            if (0 != tolerance && null == target) {
+                loadSimplifiedGeometry(tolerance);
+                return;
+            }
+            simplifiedGeometry  = target;
+            simplifiedTolerance = tolerance;
+        }
+        Bounds        visible   = isCullingEnabled() ? getCullingBounds() : null;
+        Set<Country>  countries = EnumSet.noneOf(Country.class);
+        countries.addAll(countryPaths.keySet());
+        countries.addAll(simplifiedCountries.keySet());
+        for (Country country : countries) {
+            if (simplifiedCountries.get(country) == simplifiedGeometry) continue;
+            Bounds bounds = countryBounds.get(country);
+            if (null != visible && null != bounds && !visible.intersects(bounds)) continue;
+            replaceCountryPaths(country, (null == simplifiedGeometry ? geometry : simplifiedGeometry).get(country));
+            if (null == simplifiedGeometry) {
+                simplifiedCountries.remove(country);
+            } else {
+                simplifiedCountries.put(country, simplifiedGeometry);
+            }
+        }
+    }
+
+    // The tolerance of the simplified geometry that fits the pixel scale, 0 for the HI_RES geometry
+    private double getSimplificationTolerance() {
+        return isLevelOfDetailEnabled() ? GeometryCache.getTolerance(GeometryCache.PIXEL_TOLERANCE / getPixelScale()) : 0;
+    }
+
+    // Simplifies the HI_RES geometry in the background, one level at a time
+    private void loadSimplifiedGeometry(final double TOLERANCE) {
+        if (simplificationLoading) return;
+        simplificationLoading = true;
+        CompletableFuture.supplyAsync(() -> GeometryCache.get(TOLERANCE), executor)
+                         .whenComplete((GEOMETRY, THROWABLE) -> Platform.runLater(() -> {
+                             simplificationLoading = false;
+                             // The level might not be needed anymore when the zoom changed in the meantime
+                             if (null != GEOMETRY && TOLERANCE == getSimplificationTolerance()) {
+                                 simplifiedGeometry  = GEOMETRY;
+                                 simplifiedTolerance = TOLERANCE;
+                             }
+                             scheduleViewportUpdate();
+                         }));
+    }
+
+    // Replaces the paths of the given country in place, a null geometry just removes them
+    private void replaceCountryPaths(final Country COUNTRY, final CountryGeometry COUNTRY_GEOMETRY) {
+        List<CountryPath> oldPaths = countryPaths.remove(COUNTRY);
+        List<CountryPath> newPaths = null == COUNTRY_GEOMETRY ? new ArrayList<>() : createCountryPaths(COUNTRY_GEOMETRY);
+        initCountryPaths(COUNTRY, newPaths);
+
+        int index;
+        if (null == oldPaths || oldPaths.isEmpty()) {
+            index = getCountryNodeCount();
+        } else {
+            index = pane.getChildren().indexOf(oldPaths.get(0));
+            pane.getChildren().removeAll(oldPaths);
+        }
+        pane.getChildren().addAll(index, newPaths);
+        if (!newPaths.isEmpty()) { countryPaths.put(COUNTRY, newPaths); }
+    }
+
+    // Returns the part of the map that is visible in the area the World occupies in its parent
+    private double[] getVisibleMapBounds() {
+        if (null == getParent() || getWidth() <= 0 || getHeight() <= 0) { return new double[] { 0, 0, PREFERRED_WIDTH, PREFERRED_HEIGHT }; }
+        Bounds visible = pane.sceneToLocal(getParent().localToScene(new BoundingBox(getLayoutX(), getLayoutY(), getWidth(), getHeight())));
+        return new double[] { visible.getMinX(), visible.getMinY(), visible.getMaxX(), visible.getMaxY() };
     }
 
 
@@ -652,6 +1800,239 @@ public class World extends Region {
             group.relocate((getWidth() - width) * 0.5, (getHeight() - height) * 0.5);
 
             pane.setCache(false);
+
+            scheduleViewportUpdate();
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    // Collects drag distances and applies them once per pulse, keeps moving with decaying speed after release
+    private class Panner extends AnimationTimer {
+        private static final double  DRAG_THRESHOLD = 4;     // [px]
+        private static final double  INERTIA_TIME   = 325;   // [ms]
+        private static final double  MIN_VELOCITY   = 0.02;  // [px/ms]
+        private static final long    MAX_IDLE       = 50_000_000; // [ns]
+        private              double  pressX;
+        private              double  pressY;
+        private              double  lastX;
+        private              double  lastY;
+        private              double  pendingX;
+        private              double  pendingY;
+        private              double  velocityX;
+        private              double  velocityY;
+        private              long    lastDragNanos;
+        private              long    lastFrameNanos;
+        private              boolean pressed;
+        private              boolean dragging;
+        private              boolean dragged;
+        private              boolean running;
+        private              Country pressedCountry;
+        private              Country selectedBeforePress;
+
+
+        // ******************** Methods ***************************************
+        boolean wasDragged() { return dragged; }
+
+        void press(final MouseEvent EVENT) {
+            stopInertia();
+            Point2D point = toParent(EVENT);
+            pressX              = point.getX();
+            pressY              = point.getY();
+            lastX               = pressX;
+            lastY               = pressY;
+            lastDragNanos       = System.nanoTime();
+            pressed             = true;
+            dragging            = false;
+            dragged             = false;
+            selectedBeforePress = getSelectedCountry();
+            pressedCountry      = EVENT.getTarget() instanceof CountryPath ? ((CountryPath) EVENT.getTarget()).getCountry() : hoveredCountry;
+        }
+
+        void drag(final MouseEvent EVENT) {
+            if (!pressed) return;
+            Point2D point = toParent(EVENT);
+            if (!dragging) {
+                if (Math.hypot(point.getX() - pressX, point.getY() - pressY) < DRAG_THRESHOLD) return;
+                dragging = true;
+                dragged  = true;
+                camera.cancel();
+                undoPress();
+            }
+            final long   NOW      = System.nanoTime();
+            final double ELAPSED  = Math.max(1, (NOW - lastDragNanos) / 1_000_000.0);
+            final double DELTA_X  = point.getX() - lastX;
+            final double DELTA_Y  = point.getY() - lastY;
+            pendingX     += DELTA_X;
+            pendingY     += DELTA_Y;
+            velocityX     = 0.8 * velocityX + 0.2 * DELTA_X / ELAPSED;
+            velocityY     = 0.8 * velocityY + 0.2 * DELTA_Y / ELAPSED;
+            lastX         = point.getX();
+            lastY         = point.getY();
+            lastDragNanos = NOW;
+            if (!running) {
+                running        = true;
+                lastFrameNanos = -1;
+                start();
+            }
+        }
+
+        // Returns true if the release ends a drag
+        boolean release() {
+            pressed = false;
+            if (!dragging) return false;
+            dragging = false;
+            if (System.nanoTime() - lastDragNanos > MAX_IDLE) {
+                velocityX = 0;
+                velocityY = 0;
+            }
+            return true;
+        }
+
+        void stopInertia() {
+            stop();
+            running   = false;
+            pendingX  = 0;
+            pendingY  = 0;
+            velocityX = 0;
+            velocityY = 0;
+        }
+
+        @Override public void handle(final long NOW) {
+            final double ELAPSED = lastFrameNanos < 0 ? 1000.0 / 60.0 : (NOW - lastFrameNanos) / 1_000_000.0;
+            lastFrameNanos = NOW;
+            double deltaX = pendingX;
+            double deltaY = pendingY;
+            pendingX = 0;
+            pendingY = 0;
+            if (!dragging) {
+                deltaX += velocityX * ELAPSED;
+                deltaY += velocityY * ELAPSED;
+                double decay = Math.exp(-ELAPSED / INERTIA_TIME);
+                velocityX *= decay;
+                velocityY *= decay;
+            }
+            if (deltaX != 0 || deltaY != 0) {
+                boolean[] clamped = pan(deltaX, deltaY);
+                if (clamped[0]) { velocityX = 0; }
+                if (clamped[1]) { velocityY = 0; }
+            }
+            if (!dragging && Math.hypot(velocityX, velocityY) < MIN_VELOCITY) {
+                stop();
+                running = false;
+            }
+        }
+
+        // Reverts what the press did to the selection and the color of the pressed country
+        private void undoPress() {
+            final Country SELECTED = getSelectedCountry();
+            if (SELECTED != selectedBeforePress) {
+                setSelectedCountry(selectedBeforePress);
+                if (null != SELECTED) { setCountryFill(SELECTED, null == SELECTED.getColor() ? getFillColor() : SELECTED.getColor()); }
+            }
+            // A press on a map with a selection paints the selected country in its normal color
+            if (isSelectionEnabled() && null != selectedBeforePress) { setCountryFill(selectedBeforePress, getSelectedColor()); }
+            if (null != pressedCountry && isHoverEnabled()) {
+                setCountryFill(pressedCountry, isSelectionEnabled() && pressedCountry == getSelectedCountry() ? getSelectedColor() : getHoverColor());
+            }
+        }
+
+        private Point2D toParent(final MouseEvent EVENT) {
+            return null == getParent() ? new Point2D(EVENT.getSceneX(), EVENT.getSceneY()) : getParent().sceneToLocal(EVENT.getSceneX(), EVENT.getSceneY());
+        }
+    }
+
+    // Animates scale factor and translations with one AnimationTimer, the pane is cached as bitmap while moving
+    private class Camera extends AnimationTimer {
+        private final double[] FROM = new double[5];
+        private final double[] TO   = new double[5];
+        private       long     durationNanos;
+        private       long     startNanos;
+        private       boolean  moving;
+
+
+        // ******************** Methods ***************************************
+        boolean isMoving() { return moving; }
+
+        void fly(final double SCALE_FACTOR, final double GROUP_TRANSLATE_X, final double GROUP_TRANSLATE_Y, final Duration DURATION) {
+            FROM[0] = getScaleFactor();
+            FROM[1] = getTranslateX();
+            FROM[2] = getTranslateY();
+            FROM[3] = group.getTranslateX();
+            FROM[4] = group.getTranslateY();
+            TO[0]   = SCALE_FACTOR;
+            TO[1]   = 0;
+            TO[2]   = 0;
+            TO[3]   = GROUP_TRANSLATE_X;
+            TO[4]   = GROUP_TRANSLATE_Y;
+            durationNanos = (long) (DURATION.toMillis() * 1_000_000);
+            startNanos    = -1;
+            if (moving) return;
+            moving = true;
+            // The pane is cached as a bitmap during the flight, it has to contain the countries that come into view
+            if (RenderMode.NODES == renderMode) { cull(null); }
+            pane.setCache(true);
+            pane.setCacheHint(CacheHint.SPEED);
+            start();
+        }
+
+        void cancel() {
+            if (!moving) return;
+            stop();
+            moving = false;
+            pane.setCacheHint(CacheHint.QUALITY);
+            pane.setCache(false);
+            if (viewportUpdateDeferred) {
+                viewportUpdateDeferred = false;
+                scheduleViewportUpdate();
+            }
+        }
+
+        @Override public void handle(final long NOW) {
+            if (startNanos < 0) { startNanos = NOW; }
+            double progress = durationNanos <= 0 ? 1 : Math.min(1, (NOW - startNanos) / (double) durationNanos);
+            double fraction = Interpolator.EASE_BOTH.interpolate(0.0, 1.0, progress);
+            // The scale factor is interpolated exponentially which makes the zoom speed look constant
+            setScaleFactor(FROM[0] * Math.pow(TO[0] / FROM[0], fraction));
+            setTranslateX(FROM[1] + (TO[1] - FROM[1]) * fraction);
+            setTranslateY(FROM[2] + (TO[2] - FROM[2]) * fraction);
+            group.setTranslateX(FROM[3] + (TO[3] - FROM[3]) * fraction);
+            group.setTranslateY(FROM[4] + (TO[4] - FROM[4]) * fraction);
+            if (progress >= 1) { cancel(); }
+        }
+    }
+
+    // Read only view of the country paths with the country names as keys
+    private class CountryPathsByName extends AbstractMap<String, List<CountryPath>> {
+        @Override public int size() { return countryPaths.size(); }
+
+        @Override public boolean containsKey(final Object KEY) { return null != get(KEY); }
+
+        @Override public List<CountryPath> get(final Object KEY) {
+            if (!(KEY instanceof String)) return null;
+            try {
+                return countryPaths.get(Country.valueOf((String) KEY));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override public Set<Entry<String, List<CountryPath>>> entrySet() {
+            return new AbstractSet<Entry<String, List<CountryPath>>>() {
+                @Override public int size() { return countryPaths.size(); }
+
+                @Override public Iterator<Entry<String, List<CountryPath>>> iterator() {
+                    final Iterator<Entry<Country, List<CountryPath>>> ENTRIES = countryPaths.entrySet().iterator();
+                    return new Iterator<Entry<String, List<CountryPath>>>() {
+                        @Override public boolean hasNext() { return ENTRIES.hasNext(); }
+
+                        @Override public Entry<String, List<CountryPath>> next() {
+                            Entry<Country, List<CountryPath>> entry = ENTRIES.next();
+                            return new SimpleImmutableEntry<>(entry.getKey().getName(), entry.getValue());
+                        }
+                    };
+                }
+            };
         }
     }
 }
@@ -16,7 +16,9 @@
 
 package eu.hansolo.fx.world;
 
+import eu.hansolo.fx.world.World.RenderMode;
 import eu.hansolo.fx.world.World.Resolution;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
@@ -31,7 +33,13 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import org.kordamp.ikonli.Ikon;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -39,7 +47,9 @@ import java.util.HashMap;
  */
 public class WorldBuilder<B extends WorldBuilder<B>> {
     private HashMap<String, Property> properties = new HashMap<>();
-    private Resolution                resolution = Resolution.HI_RES;
+    private Resolution                resolution;
+    private RenderMode                renderMode = RenderMode.NODES;
+    private List<Country>             priority   = new ArrayList<>();
 
 
     // ******************** Constructors **************************************
@@ -54,6 +64,25 @@ public class WorldBuilder<B extends WorldBuilder<B>> {
         return (B)this;
     }
 
+    public final B renderMode(final RenderMode RENDER_MODE) {
+        renderMode = RENDER_MODE;
+        return (B)this;
+    }
+
+    /**
+     * Countries that will be attached first when the World is built with buildAsync().
+     * @param COUNTRIES countries that should be visible first
+     * @return this builder
+     */
+    public final B priority(final Country... COUNTRIES) {
+        priority = Arrays.asList(COUNTRIES);
+        return (B)this;
+    }
+    public final B priority(final CRegion REGION) {
+        priority = new ArrayList<>(REGION.getCountries());
+        return (B)this;
+    }
+
     public final B backgroundColor(final Color COLOR) {
         properties.put("backgroundColor", new SimpleObjectProperty<>(COLOR));
         return (B)this;
@@ -89,11 +118,21 @@ public class WorldBuilder<B extends WorldBuilder<B>> {
         return (B)this;
     }
 
+    public final B routeColor(final Color COLOR) {
+        properties.put("routeColor", new SimpleObjectProperty<>(COLOR));
+        return (B)this;
+    }
+
     public final B hoverEnabled(final boolean ENABLED) {
         properties.put("hoverEnabled", new SimpleBooleanProperty(ENABLED));
         return (B)this;
     }
 
+    public final B tooltipsEnabled(final boolean ENABLED) {
+        properties.put("tooltipsEnabled", new SimpleBooleanProperty(ENABLED));
+        return (B)this;
+    }
+
     public final B selectionEnabled(final boolean ENABLED) {
         properties.put("selectionEnabled", new SimpleBooleanProperty(ENABLED));
         return (B)this;
@@ -104,6 +143,60 @@ public class WorldBuilder<B extends WorldBuilder<B>> {
         return (B)this;
     }
 
+    /**
+     * Enables zoom driven switching between LO_RES and HI_RES paths, the World
+     * will be created with Resolution.LO_RES in this case unless a resolution
+     * was set explicitly. With an explicit Resolution.HI_RES the World shows
+     * simplified paths that follow the zoom level instead.
+     * @param ENABLED true to switch the detail with the zoom level
+     * @return this builder
+     */
+    public final B levelOfDetailEnabled(final boolean ENABLED) {
+        properties.put("levelOfDetailEnabled", new SimpleBooleanProperty(ENABLED));
+        return (B)this;
+    }
+
+    /**
+     * Hides the countries that are outside of the visible part of the map
+     * while zoomed in, only used with RenderMode.NODES.
+     * @param ENABLED true to hide countries outside of the viewport
+     * @return this builder
+     */
+    public final B cullingEnabled(final boolean ENABLED) {
+        properties.put("cullingEnabled", new SimpleBooleanProperty(ENABLED));
+        return (B)this;
+    }
+
+    /**
+     * Draws all locations into one canvas instead of creating a node per location.
+     * @param ENABLED true for large numbers of locations
+     * @return this builder
+     */
+    public final B locationLayerEnabled(final boolean ENABLED) {
+        properties.put("locationLayerEnabled", new SimpleBooleanProperty(ENABLED));
+        return (B)this;
+    }
+
+    /**
+     * Shows locations that are close to each other on screen as one cluster marker.
+     * @param ENABLED true to cluster the locations
+     * @return this builder
+     */
+    public final B clusteringEnabled(final boolean ENABLED) {
+        properties.put("clusteringEnabled", new SimpleBooleanProperty(ENABLED));
+        return (B)this;
+    }
+
+    public final B hiResThreshold(final double THRESHOLD) {
+        properties.put("hiResThreshold", new SimpleDoubleProperty(THRESHOLD));
+        return (B)this;
+    }
+
+    public final B loResThreshold(final double THRESHOLD) {
+        properties.put("loResThreshold", new SimpleDoubleProperty(THRESHOLD));
+        return (B)this;
+    }
+
     public final B mouseEnterHandler(final EventHandler<MouseEvent> HANDLER) {
         properties.put("mouseEnterHandler", new SimpleObjectProperty(HANDLER));
         return (B)this;
@@ -212,8 +305,28 @@ public class WorldBuilder<B extends WorldBuilder<B>> {
     }
 
     public final World build() {
-        final World CONTROL = new World(resolution);
+        return apply(new World(getResolution(), renderMode));
+    }
+
+    /**
+     * Builds the World without blocking the FX application thread. The geometry
+     * is loaded on the common fork join pool and the countries defined by
+     * priority() are attached first.
+     * @return future that completes on the FX application thread
+     */
+    public final CompletableFuture<World> buildAsync() { return buildAsync(ForkJoinPool.commonPool()); }
+    public final CompletableFuture<World> buildAsync(final Executor EXECUTOR) {
+        return World.loadAsync(getResolution(), renderMode, EXECUTOR, priority).thenApplyAsync(this::apply, Platform::runLater);
+    }
+
+    // An explicit resolution wins, otherwise level of detail starts with LO_RES
+    private Resolution getResolution() {
+        if (null != resolution) { return resolution; }
+        boolean levelOfDetail = properties.containsKey("levelOfDetailEnabled") && ((BooleanProperty) properties.get("levelOfDetailEnabled")).get();
+        return levelOfDetail ? Resolution.LO_RES : Resolution.HI_RES;
+    }
 
+    private World apply(final World CONTROL) {
         for (String key : properties.keySet()) {
             if ("prefSize".equals(key)) {
                 Dimension2D dim = ((ObjectProperty<Dimension2D>) properties.get(key)).get();
@@ -264,12 +377,28 @@ public class WorldBuilder<B extends WorldBuilder<B>> {
                 CONTROL.setSelectedColor(((ObjectProperty<Color>) properties.get(key)).get());
             } else if ("locationColor".equals(key)) {
                 CONTROL.setLocationColor(((ObjectProperty<Color>) properties.get(key)).get());
+            } else if ("routeColor".equals(key)) {
+                CONTROL.setRouteColor(((ObjectProperty<Color>) properties.get(key)).get());
             } else if ("hoverEnabled".equals(key)) {
                 CONTROL.setHoverEnabled(((BooleanProperty) properties.get(key)).get());
+            } else if ("tooltipsEnabled".equals(key)) {
+                CONTROL.setTooltipsEnabled(((BooleanProperty) properties.get(key)).get());
             } else if ("selectionEnabled".equals(key)) {
                 CONTROL.setSelectionEnabled(((BooleanProperty) properties.get(key)).get());
             } else if ("zoomEnabled".equals(key)) {
                 CONTROL.setZoomEnabled(((BooleanProperty) properties.get(key)).get());
+            } else if ("levelOfDetailEnabled".equals(key)) {
+                CONTROL.setLevelOfDetailEnabled(((BooleanProperty) properties.get(key)).get());
+            } else if ("cullingEnabled".equals(key)) {
+                CONTROL.setCullingEnabled(((BooleanProperty) properties.get(key)).get());
+            } else if ("locationLayerEnabled".equals(key)) {
+                CONTROL.setLocationLayerEnabled(((BooleanProperty) properties.get(key)).get());
+            } else if ("clusteringEnabled".equals(key)) {
+                CONTROL.setClusteringEnabled(((BooleanProperty) properties.get(key)).get());
+            } else if ("hiResThreshold".equals(key)) {
+                CONTROL.setHiResThreshold(((DoubleProperty) properties.get(key)).get());
+            } else if ("loResThreshold".equals(key)) {
+                CONTROL.setLoResThreshold(((DoubleProperty) properties.get(key)).get());
             } else if ("mouseEnterHandler".equals(key)) {
                 CONTROL.setMouseEnterHandler(((ObjectProperty<EventHandler<MouseEvent>>) properties.get(key)).get());
             } else if ("mousePressHandler".equals(key)) {